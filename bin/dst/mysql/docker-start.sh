@@ -6,6 +6,17 @@ DST_USER_PASSWORD=synclite
 DST_SCHEMA_NAME=syncliteschema
 JOB_NAME=job1
 
+# Set to true to start mysqld with --local-infile=1 for bulk loads via LOAD DATA LOCAL INFILE.
+# Off by default: it lets the server ask connecting clients for local files.
+ENABLE_LOCAL_INFILE=false
+
+MYSQLD_ARGS=""
+JDBC_ARGS=""
+if [ "${ENABLE_LOCAL_INFILE}" = "true" ]; then
+    MYSQLD_ARGS="--local-infile=1"
+    JDBC_ARGS="&allowLoadLocalInfile=true"
+fi
+
 mkdir -p $HOME/synclite/${JOB_NAME}/dstDir/mysql/data
 
 echo -e "\n=====Starting synclite-dst-mysql docker container=====\n"
@@ -18,7 +29,7 @@ docker run -d \
     -e MYSQL_DATABASE=${DST_SCHEMA_NAME} \
     -p 3306:3306 \
     -v $HOME/synclite/${JOB_NAME}/dstDir/mysql/data:/var/lib/mysql \
-    synclite-dst-mysql
+    synclite-dst-mysql ${MYSQLD_ARGS}
 
 echo "#==============WARNINGS====================================================================="
 echo "#1. Default upload username/password is synclite/synclite. Change username/password in docker-deploy.sh and docker-start.sh scripts."
@@ -26,7 +37,7 @@ echo "#2. Setup additional security machanisms as needed."
 echo "#==========================================================================================="
 echo ""
 echo "#==========JDBC Connection String to specify in SyncLite Consolidator Job Configuration===="
-echo "jdbc:mysql://127.0.0.1:5432/${DST_SCHEMA_NAME}?user=${DST_USER}?password=${DST_USER_PASSWORD}"
+echo "jdbc:mysql://127.0.0.1:3306/${DST_SCHEMA_NAME}?user=${DST_USER}&password=${DST_USER_PASSWORD}${JDBC_ARGS}"
 echo "#==========================================================================================="
 echo ""
 echo "#==========mysql client commandline to connect to this postgresql db===================================="
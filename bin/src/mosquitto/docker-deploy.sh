@@ -0,0 +1,13 @@
+#!/usr/bin/env bash
+
+MQTT_USER=synclite
+MQTT_PASSWORD=synclite
+JOB_NAME=job1
+
+mkdir -p $HOME/synclite/${JOB_NAME}/srcDir/mosquitto/data
+
+echo -e "\n=====Deploying synclite-src-mosquitto docker container=====\n"
+docker build \
+	--build-arg MQTT_USER=${MQTT_USER} \
+	--build-arg MQTT_PASSWORD=${MQTT_PASSWORD} \
+	-t synclite-src-mosquitto .
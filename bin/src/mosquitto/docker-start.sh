@@ -0,0 +1,30 @@
+#!/usr/bin/env bash
+
+MQTT_USER=synclite
+MQTT_PASSWORD=synclite
+JOB_NAME=job1
+
+mkdir -p $HOME/synclite/${JOB_NAME}/srcDir/mosquitto/data
+
+echo -e "\n=====Starting synclite-src-mosquitto docker container=====\n"
+docker run \
+	-d \
+	-p 1883:1883 \
+	--name synclite-src-mosquitto \
+	-v $HOME/synclite/${JOB_NAME}/srcDir/mosquitto/data:/mosquitto/data \
+	synclite-src-mosquitto
+
+echo "#==============WARNINGS====================================================================="
+echo "#1. Default MQTT username/password is synclite/synclite. Change username/password in docker-deploy.sh and docker-start.sh scripts."
+echo "#2. The listener is plain TCP. Setup TLS and additional security machanisms as needed."
+echo "#==========================================================================================="
+echo ""
+echo "#==========Broker details to specify in SyncLite QReader Job Configuration================="
+echo "Broker URL : tcp://127.0.0.1:1883"
+echo "Username   : ${MQTT_USER}"
+echo "Password   : ${MQTT_PASSWORD}"
+echo "#==========================================================================================="
+echo ""
+echo "#==========Ingest benchmark against this broker============================================"
+echo "python3 tools/bench_mqtt_ingest.py --broker 127.0.0.1:1883 --username ${MQTT_USER} --password ${MQTT_PASSWORD}"
+echo "#==========================================================================================="
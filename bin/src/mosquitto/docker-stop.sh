@@ -0,0 +1,7 @@
+#!/usr/bin/env bash
+
+
+echo -e "\n=====Stopping and removing synclite-src-mosquitto docker container=====\n"
+
+docker stop synclite-src-mosquitto
+docker rm synclite-src-mosquitto
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2025 mahendra.chavan@synclite.io, all rights reserved.
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.  See the License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package io.synclite.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import io.synclite.DestinationOptions;
+import io.synclite.DstSyncMode;
+import io.synclite.DstType;
+
+/**
+ * Per-trial scratch space shared by every benchmark.
+ *
+ * <p>Each trial gets its own directory holding the device DB, a
+ * {@code synclite.conf} next to it, and the {@code stageDir/} and
+ * {@code workDir/} roots the conf points at. Nothing is written under
+ * {@code <userHome>/synclite/}, so trials never see each other's segments
+ * or consolidator state, and a run works offline on a single box.
+ *
+ * <p>The conf sits next to the DB on purpose: {@code initialize(dbPath, conf)}
+ * is given it explicitly, and {@code initialize(dbPath, deviceName, dst)}
+ * picks it up from the same folder, so tuning keys apply to both.
+ */
+final class BenchmarkSupport {
+
+    static final String DB_FILE = "bench.db";
+    static final String CONF_FILE = "synclite.conf";
+
+    private BenchmarkSupport() {
+    }
+
+    static Path newTrialDir(String prefix) throws IOException {
+        return Files.createTempDirectory("synclite-bench-" + prefix + "-");
+    }
+
+    static Path dbPath(Path trialDir) {
+        return trialDir.resolve(DB_FILE);
+    }
+
+    static Path stageDir(Path trialDir) {
+        return trialDir.resolve("stageDir");
+    }
+
+    /**
+     * Writes {@code synclite.conf} for a trial: FS stage and work dir inside
+     * the trial directory, plus any tuning keys the benchmark sets.
+     */
+    static Path writeConf(Path trialDir, String deviceName, Map<String, String> tuning) throws IOException {
+        Map<String, String> conf = new LinkedHashMap<>();
+        conf.put("device-name", deviceName);
+        conf.put("device-stage-type", "FS");
+        conf.put("local-data-stage-directory", stageDir(trialDir).toString());
+        conf.put("work-dir", trialDir.resolve("workDir").toString());
+        conf.putAll(tuning);
+
+        Files.createDirectories(stageDir(trialDir));
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> e : conf.entrySet()) {
+            sb.append(e.getKey()).append('=').append(e.getValue()).append(System.lineSeparator());
+        }
+        Path confPath = trialDir.resolve(CONF_FILE);
+        Files.write(confPath, sb.toString().getBytes(StandardCharsets.UTF_8));
+        return confPath;
+    }
+
+    static Path writeConf(Path trialDir, String deviceName) throws IOException {
+        return writeConf(trialDir, deviceName, Map.of());
+    }
+
+    /**
+     * Embedded destination inside the trial directory, so the in-process
+     * consolidator can be measured without any external database.
+     */
+    static DestinationOptions destination(Path trialDir, String dstType, String syncMode) {
+        DstSyncMode mode = DstSyncMode.valueOf(syncMode);
+        switch (dstType) {
+            case "SQLITE":
+                return DestinationOptions.builder()
+                        .dstType(DstType.SQLITE)
+                        .connectionString(trialDir.resolve("dst_sqlite.db").toString())
+                        .syncMode(mode)
+                        .build();
+            case "DUCKDB":
+                return DestinationOptions.builder()
+                        .dstType(DstType.DUCKDB)
+                        .connectionString(trialDir.resolve("dst_duckdb.duckdb").toString())
+                        .database("dst_duckdb")
+                        .schema("main")
+                        .syncMode(mode)
+                        .build();
+            default:
+                throw new IllegalArgumentException("Unsupported embedded destination type: " + dstType);
+        }
+    }
+
+    static void deleteTrialDir(Path trialDir) {
+        if (trialDir == null || !Files.exists(trialDir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(trialDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            // Best effort: a leftover temp dir must not fail the run.
+            System.err.println("WARN: could not remove " + trialDir + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2025 mahendra.chavan@synclite.io, all rights reserved.
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.  See the License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package io.synclite.benchmarks;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Commit latency and throughput of a single-row transaction on each SQL
+ * device, logger-only (segments go to a local FS stage, nothing is applied).
+ *
+ * <p>{@code asyncLogging} flips {@code disable-async-logging-for-transactional-device},
+ * i.e. whether the commit waits for its log records to reach the segment.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class CommitBenchmark {
+
+    @Param({"SQLITE", "DUCKDB", "H2", "DERBY", "HYPERSQL"})
+    public String deviceType;
+
+    @Param({"false", "true"})
+    public boolean asyncLogging;
+
+    private SqlDevice device;
+    private Path trialDir;
+    private Path dbPath;
+    private Connection conn;
+    private PreparedStatement insert;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        device = SqlDevice.valueOf(deviceType);
+        trialDir = BenchmarkSupport.newTrialDir("commit");
+        dbPath = BenchmarkSupport.dbPath(trialDir);
+        Path conf = BenchmarkSupport.writeConf(trialDir, "benchcommit", Map.of(
+                "disable-async-logging-for-transactional-device", String.valueOf(!asyncLogging)));
+        device.initialize(dbPath, conf);
+
+        conn = DriverManager.getConnection(device.url(dbPath));
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE bench(id BIGINT PRIMARY KEY, name VARCHAR(64), score INT)");
+        }
+        conn.commit();
+        insert = conn.prepareStatement("INSERT INTO bench(id, name, score) VALUES(?, ?, ?)");
+    }
+
+    @Benchmark
+    public void commitSingleRow() throws Exception {
+        long id = nextId++;
+        insert.setLong(1, id);
+        insert.setString(2, "name-" + id);
+        insert.setInt(3, (int) (id & 0xFFFF));
+        insert.executeUpdate();
+        conn.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try {
+            if (insert != null) {
+                insert.close();
+            }
+            if (conn != null) {
+                conn.close();
+            }
+            device.closeDevice(dbPath);
+        } finally {
+            BenchmarkSupport.deleteTrialDir(trialDir);
+        }
+    }
+}
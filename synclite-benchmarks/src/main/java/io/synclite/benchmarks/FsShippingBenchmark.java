@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2025 mahendra.chavan@synclite.io, all rights reserved.
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.  See the License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package io.synclite.benchmarks;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.synclite.SyncLite;
+
+/**
+ * Commit-to-applied latency through the FS stage: a single-row commit on a
+ * SQLITE device, then {@link SyncLite#awaitSync} until the in-process
+ * consolidator has applied it to an embedded SQLite or DuckDB destination.
+ *
+ * <p>The latency is dominated by how soon the segment holding the commit is
+ * closed and shipped, so the sweep covers
+ * {@code log-segment-switch-duration-threshold-ms} and
+ * {@code log-segment-shipping-frequency-ms}. SampleTime mode reports the
+ * p50/p99 end-to-end lag for each pair.
+ *
+ * <p>Every invocation waits out a segment switch and a shipping round, so one
+ * sample takes up to the sum of the two settings. Measurement is sized so the
+ * slowest pair in the sweep (1000 ms + 1000 ms) still collects about 150
+ * samples per trial, enough for a stable p99. When passing larger values with
+ * {@code -p}, scale {@code -i} / {@code -r} by the same factor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 20)
+@Measurement(iterations = 5, time = 60)
+@Fork(1)
+public class FsShippingBenchmark {
+
+    private static final Duration AWAIT_TIMEOUT = Duration.ofMinutes(5);
+
+    @Param({"SQLITE", "DUCKDB"})
+    public String dstType;
+
+    @Param({"100", "1000"})
+    public long switchDurationThresholdMs;
+
+    @Param({"100", "1000"})
+    public long shippingFrequencyMs;
+
+    private Path trialDir;
+    private Path dbPath;
+    private Connection conn;
+    private PreparedStatement insert;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        trialDir = BenchmarkSupport.newTrialDir("shipping");
+        dbPath = BenchmarkSupport.dbPath(trialDir);
+        BenchmarkSupport.writeConf(trialDir, "benchshipping", Map.of(
+                "log-segment-switch-duration-threshold-ms", String.valueOf(switchDurationThresholdMs),
+                "log-segment-shipping-frequency-ms", String.valueOf(shippingFrequencyMs)));
+        SqlDevice.SQLITE.initialize(dbPath, "benchshipping",
+                BenchmarkSupport.destination(trialDir, dstType, "REPLICATION"));
+
+        conn = DriverManager.getConnection(SqlDevice.SQLITE.url(dbPath));
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE bench(id BIGINT PRIMARY KEY, name VARCHAR(64), score INT)");
+        }
+        conn.commit();
+        SyncLite.awaitSync(dbPath, AWAIT_TIMEOUT);
+        insert = conn.prepareStatement("INSERT INTO bench(id, name, score) VALUES(?, ?, ?)");
+    }
+
+    @Benchmark
+    public void commitToAwaitSync() throws Exception {
+        long id = nextId++;
+        insert.setLong(1, id);
+        insert.setString(2, "name-" + id);
+        insert.setInt(3, (int) (id & 0xFFFF));
+        insert.executeUpdate();
+        conn.commit();
+        SyncLite.awaitSync(dbPath, AWAIT_TIMEOUT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try {
+            if (insert != null) {
+                insert.close();
+            }
+            if (conn != null) {
+                conn.close();
+            }
+            SqlDevice.SQLITE.closeDevice(dbPath);
+        } finally {
+            BenchmarkSupport.deleteTrialDir(trialDir);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2025 mahendra.chavan@synclite.io, all rights reserved.
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.  See the License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package io.synclite.benchmarks;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.synclite.DerbyStore;
+import io.synclite.DuckDBStore;
+import io.synclite.H2Store;
+import io.synclite.HyperSQLStore;
+import io.synclite.SQLiteStore;
+import io.synclite.Streaming;
+import io.synclite.SyncLiteStore;
+import io.synclite.SyncLiteStream;
+
+/**
+ * {@code insertBatch} throughput of the Store devices and the STREAMING
+ * device, logger-only.
+ *
+ * <p>Rows are built once per trial so the measurement covers the
+ * {@code List<Map<String, Object>>} path inside SyncLite, not map
+ * construction in the benchmark. The {@code rows} counter in the results is
+ * rows/sec; the primary score is batches/sec.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class InsertBatchBenchmark {
+
+    private static final String TABLE = "events";
+
+    @Param({"SQLITE_STORE", "DUCKDB_STORE", "H2_STORE", "DERBY_STORE", "HYPERSQL_STORE", "STREAMING"})
+    public String deviceType;
+
+    @Param({"100", "10000"})
+    public int batchSize;
+
+    @Param({"false", "true"})
+    public boolean asyncLogging;
+
+    private Path trialDir;
+    private Path dbPath;
+    private BatchSink sink;
+    private List<Map<String, Object>> rows;
+
+    /** The slice of SyncLiteStore / SyncLiteStream this benchmark drives. */
+    private interface BatchSink extends AutoCloseable {
+        void insertBatch(String table, List<Map<String, Object>> rows) throws Exception;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        trialDir = BenchmarkSupport.newTrialDir("batch");
+        dbPath = BenchmarkSupport.dbPath(trialDir);
+        Path conf = BenchmarkSupport.writeConf(trialDir, "benchbatch", Map.of(
+                "enable-async-logging-for-appender-device", String.valueOf(asyncLogging)));
+
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        columns.put("ts", "BIGINT");
+        columns.put("event_type", "VARCHAR(32)");
+        columns.put("user_id", "VARCHAR(32)");
+        columns.put("amount", "DOUBLE");
+
+        if ("STREAMING".equals(deviceType)) {
+            Streaming.initialize(dbPath, conf);
+            SyncLiteStream stream = SyncLiteStream.open(dbPath);
+            stream.createTable(TABLE, columns);
+            sink = new BatchSink() {
+                @Override
+                public void insertBatch(String table, List<Map<String, Object>> batch) throws Exception {
+                    stream.insertBatch(table, batch);
+                }
+
+                @Override
+                public void close() throws Exception {
+                    stream.close();
+                    Streaming.closeDevice(dbPath);
+                }
+            };
+        } else {
+            SyncLiteStore store = openStore(conf);
+            store.createTable(TABLE, columns);
+            sink = new BatchSink() {
+                @Override
+                public void insertBatch(String table, List<Map<String, Object>> batch) throws Exception {
+                    store.insertBatch(table, batch);
+                }
+
+                @Override
+                public void close() throws Exception {
+                    store.close();
+                    closeStore();
+                }
+            };
+        }
+
+        rows = new ArrayList<>(batchSize);
+        long ts = System.currentTimeMillis();
+        for (int i = 0; i < batchSize; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("ts", ts + i);
+            row.put("event_type", (i & 1) == 0 ? "VIEW" : "PURCHASE");
+            row.put("user_id", "user-" + (i % 1000));
+            row.put("amount", i * 0.25d);
+            rows.add(row);
+        }
+    }
+
+    private SyncLiteStore openStore(Path conf) throws Exception {
+        switch (deviceType) {
+            case "SQLITE_STORE":
+                SQLiteStore.initialize(dbPath, conf);
+                return SQLiteStore.open(dbPath);
+            case "DUCKDB_STORE":
+                DuckDBStore.initialize(dbPath, conf);
+                return DuckDBStore.open(dbPath);
+            case "H2_STORE":
+                H2Store.initialize(dbPath, conf);
+                return H2Store.open(dbPath);
+            case "DERBY_STORE":
+                DerbyStore.initialize(dbPath, conf);
+                return DerbyStore.open(dbPath);
+            case "HYPERSQL_STORE":
+                HyperSQLStore.initialize(dbPath, conf);
+                return HyperSQLStore.open(dbPath);
+            default:
+                throw new IllegalArgumentException("Unsupported store device type: " + deviceType);
+        }
+    }
+
+    private void closeStore() throws Exception {
+        switch (deviceType) {
+            case "SQLITE_STORE":
+                SQLiteStore.closeDevice(dbPath);
+                break;
+            case "DUCKDB_STORE":
+                DuckDBStore.closeDevice(dbPath);
+                break;
+            case "H2_STORE":
+                H2Store.closeDevice(dbPath);
+                break;
+            case "DERBY_STORE":
+                DerbyStore.closeDevice(dbPath);
+                break;
+            case "HYPERSQL_STORE":
+                HyperSQLStore.closeDevice(dbPath);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported store device type: " + deviceType);
+        }
+    }
+
+    @Benchmark
+    public void insertBatch(RowCounter counter) throws Exception {
+        sink.insertBatch(TABLE, rows);
+        counter.rows += batchSize;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try {
+            if (sink != null) {
+                sink.close();
+            }
+        } finally {
+            BenchmarkSupport.deleteTrialDir(trialDir);
+        }
+    }
+}
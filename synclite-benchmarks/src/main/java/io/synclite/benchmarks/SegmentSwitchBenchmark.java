@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2025 mahendra.chavan@synclite.io, all rights reserved.
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.  See the License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package io.synclite.benchmarks;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Segment write and switch cost on a SQLITE device, logger-only.
+ *
+ * <p>Each invocation commits one batched transaction of {@code rowsPerCommit}
+ * rows. Sweeping {@code log-segment-switch-log-count-threshold} down from
+ * its default shows what a segment switch costs per commit; sweeping
+ * {@code log-segment-flush-batch-size} shows the write cost of flushing
+ * the segment more often. Use the results to size both keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class SegmentSwitchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public long switchLogCountThreshold;
+
+    @Param({"1000", "1000000"})
+    public long flushBatchSize;
+
+    @Param({"1000"})
+    public int rowsPerCommit;
+
+    private Path trialDir;
+    private Path dbPath;
+    private Connection conn;
+    private PreparedStatement insert;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        trialDir = BenchmarkSupport.newTrialDir("segment");
+        dbPath = BenchmarkSupport.dbPath(trialDir);
+        Path conf = BenchmarkSupport.writeConf(trialDir, "benchsegment", Map.of(
+                "log-segment-switch-log-count-threshold", String.valueOf(switchLogCountThreshold),
+                "log-segment-flush-batch-size", String.valueOf(flushBatchSize)));
+        SqlDevice.SQLITE.initialize(dbPath, conf);
+
+        conn = DriverManager.getConnection(SqlDevice.SQLITE.url(dbPath));
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE bench(id BIGINT PRIMARY KEY, name VARCHAR(64), score INT)");
+        }
+        conn.commit();
+        insert = conn.prepareStatement("INSERT INTO bench(id, name, score) VALUES(?, ?, ?)");
+    }
+
+    @Benchmark
+    public void commitBatch(RowCounter counter) throws Exception {
+        for (int i = 0; i < rowsPerCommit; i++) {
+            long id = nextId++;
+            insert.setLong(1, id);
+            insert.setString(2, "name-" + id);
+            insert.setInt(3, (int) (id & 0xFFFF));
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        conn.commit();
+        counter.rows += rowsPerCommit;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try {
+            if (insert != null) {
+                insert.close();
+            }
+            if (conn != null) {
+                conn.close();
+            }
+            SqlDevice.SQLITE.closeDevice(dbPath);
+        } finally {
+            BenchmarkSupport.deleteTrialDir(trialDir);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2025 mahendra.chavan@synclite.io, all rights reserved.
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.  See the License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package io.synclite.benchmarks;
+
+import java.nio.file.Path;
+
+import io.synclite.Derby;
+import io.synclite.DestinationOptions;
+import io.synclite.DuckDB;
+import io.synclite.H2;
+import io.synclite.HyperSQL;
+import io.synclite.SQLite;
+
+/**
+ * The SQL device types, keyed by the names benchmarks take as {@code @Param}
+ * values, with the driver entry points and JDBC URL prefix for each.
+ */
+enum SqlDevice {
+
+    SQLITE("jdbc:synclite_sqlite:",
+            SQLite::initialize, SQLite::initialize, SQLite::closeDevice),
+    DUCKDB("jdbc:synclite_duckdb:",
+            DuckDB::initialize, DuckDB::initialize, DuckDB::closeDevice),
+    H2("jdbc:synclite_h2:",
+            H2::initialize, H2::initialize, H2::closeDevice),
+    DERBY("jdbc:synclite_derby:",
+            Derby::initialize, Derby::initialize, Derby::closeDevice),
+    HYPERSQL("jdbc:synclite_hsqldb:",
+            HyperSQL::initialize, HyperSQL::initialize, HyperSQL::closeDevice);
+
+    @FunctionalInterface
+    interface LoggerInit {
+        void initialize(Path dbPath, Path conf) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface RuntimeInit {
+        void initialize(Path dbPath, String deviceName, DestinationOptions destination) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface Close {
+        void closeDevice(Path dbPath) throws Exception;
+    }
+
+    private final String urlPrefix;
+    private final LoggerInit loggerInit;
+    private final RuntimeInit runtimeInit;
+    private final Close close;
+
+    SqlDevice(String urlPrefix, LoggerInit loggerInit, RuntimeInit runtimeInit, Close close) {
+        this.urlPrefix = urlPrefix;
+        this.loggerInit = loggerInit;
+        this.runtimeInit = runtimeInit;
+        this.close = close;
+    }
+
+    String url(Path dbPath) {
+        return urlPrefix + dbPath;
+    }
+
+    /** Logger-only: segments are written to the conf's FS stage, nothing is applied. */
+    void initialize(Path dbPath, Path conf) throws Exception {
+        loggerInit.initialize(dbPath, conf);
+    }
+
+    /** Full runtime: logger, shipper and in-process consolidator draining into {@code destination}. */
+    void initialize(Path dbPath, String deviceName, DestinationOptions destination) throws Exception {
+        runtimeInit.initialize(dbPath, deviceName, destination);
+    }
+
+    void closeDevice(Path dbPath) throws Exception {
+        close.closeDevice(dbPath);
+    }
+}
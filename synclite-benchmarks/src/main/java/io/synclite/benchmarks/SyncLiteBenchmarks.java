@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2025 mahendra.chavan@synclite.io, all rights reserved.
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.  See the License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package io.synclite.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}.
+ *
+ * <p>Accepts the regular JMH command line. Unless {@code -rf}/{@code -rff}
+ * are given, results are written as JSON to
+ * {@code synclite-benchmarks-<version>.json} so runs of different releases
+ * can be diffed side by side.
+ */
+public final class SyncLiteBenchmarks {
+
+    private SyncLiteBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        if (cmdOptions.shouldHelp()) {
+            cmdOptions.showHelp();
+            return;
+        }
+
+        Runner listRunner = new Runner(cmdOptions);
+        if (cmdOptions.shouldList()) {
+            listRunner.list();
+            return;
+        }
+        if (cmdOptions.shouldListWithParams()) {
+            listRunner.listWithParams(cmdOptions);
+            return;
+        }
+        if (cmdOptions.shouldListProfilers()) {
+            cmdOptions.listProfilers();
+            return;
+        }
+        if (cmdOptions.shouldListResultFormats()) {
+            cmdOptions.listResultFormats();
+            return;
+        }
+
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmdOptions);
+        if (!cmdOptions.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmdOptions.getResult().hasValue()) {
+            builder.result("synclite-benchmarks-" + version() + ".json");
+        }
+        new Runner(builder.build()).run();
+    }
+
+    private static String version() {
+        String version = SyncLiteBenchmarks.class.getPackage().getImplementationVersion();
+        return (version != null) ? version : "dev";
+    }
+}
@@ -0,0 +1,168 @@
+"""Estimate how far per-table parallel apply could speed up a log segment.
+
+Usage:
+    analyze_apply_lanes.py <segment.sqllog> [--lanes N] [--txn-barriers]
+
+Every ``commandlog`` row is mapped to the table it writes (``INSERT INTO t``,
+``UPDATE t``, ``DELETE FROM t``, ...). Rows with an empty ``sql`` continue the
+previous statement, as batched statements are logged that way. Tables are hashed
+onto ``N`` lanes. DDL is a barrier: everything before it must be applied before it
+runs, and it runs alone. With ``--txn-barriers`` a commit that touches more than
+one table is also applied alone, which keeps multi-table transactions atomic.
+
+Segments of multi-writer devices hold ``REPLAY_TXN`` control rows instead of the
+commits themselves. Each one is replaced by the ``commandlog`` rows of the txn
+file it references, ``<segment>.sqllog.<commit_id>.txn`` next to the segment. A
+control row whose txn file is missing (already consumed, or not copied along
+with the segment) stays in as a barrier and is counted in the output.
+
+The script prints the per-table op counts and, for 1..N lanes, the critical path
+(the sum over barrier-separated epochs of the busiest lane) and the resulting
+upper-bound speedup over serial apply.
+"""
+import argparse
+import re
+import sqlite3
+import sys
+import zlib
+from collections import Counter, defaultdict
+from pathlib import Path
+
+DML = re.compile(
+    r"^\s*(?:INSERT(?:\s+OR\s+\w+)?\s+INTO|REPLACE\s+INTO|UPSERT\s+INTO|UPDATE|DELETE\s+FROM)\s+([\w.\"`\[\]]+)",
+    re.IGNORECASE,
+)
+DDL = re.compile(r"^\s*(CREATE|ALTER|DROP|TRUNCATE|RENAME)\b", re.IGNORECASE)
+REPLAY_TXN = re.compile(r"^\s*REPLAY_TXN\b", re.IGNORECASE)
+
+
+def table_name(raw: str) -> str:
+    return raw.strip('"`[]').lower()
+
+
+def read_commandlog(path: Path):
+    conn = sqlite3.connect(str(path))
+    try:
+        return conn.execute("SELECT commit_id, sql FROM commandlog ORDER BY change_sequence_number").fetchall()
+    finally:
+        conn.close()
+
+
+def expand_txn_files(segment: Path, rows, read=read_commandlog):
+    """Replace REPLAY_TXN control rows with ``read(txn_file)``; also return (found, missing).
+
+    Rows start with (commit_id, sql). A control row whose txn file is missing is
+    kept as is, so callers can tell it apart with ``REPLAY_TXN``.
+    """
+    out = []
+    found = missing = 0
+    for row in rows:
+        commit_id, sql = row[0], row[1]
+        if sql and REPLAY_TXN.match(sql):
+            txn = segment.with_name(f"{segment.name}.{commit_id}.txn")
+            if txn.exists():
+                out.extend(read(txn))
+                found += 1
+                continue
+            missing += 1
+        out.append(row)
+    return out, found, missing
+
+
+def classify(rows):
+    """Yield (commit_id, kind, table) where kind is 'dml', 'ddl' or 'other'."""
+    last = None
+    for commit_id, sql in rows:
+        if sql:
+            m = DML.match(sql)
+            if m:
+                last = ("dml", table_name(m.group(1)))
+            elif DDL.match(sql):
+                last = ("ddl", None)
+            else:
+                last = ("other", None)
+        if last is None:
+            continue
+        yield commit_id, last[0], last[1]
+
+
+def epochs(ops, txn_barriers: bool):
+    """Split ops into epochs of per-table counts separated by single-op barriers."""
+    current = Counter()
+    barriers = 0
+    result = []
+
+    by_commit = defaultdict(list)
+    order = []
+    for commit_id, kind, table in ops:
+        if commit_id not in by_commit:
+            order.append(commit_id)
+        by_commit[commit_id].append((kind, table))
+
+    for commit_id in order:
+        commit_ops = by_commit[commit_id]
+        tables = {t for k, t in commit_ops if k == "dml"}
+        if txn_barriers and len(tables) > 1:
+            if current:
+                result.append(current)
+                current = Counter()
+            barriers += len(commit_ops)
+            continue
+        for kind, table in commit_ops:
+            if kind == "dml":
+                current[table] += 1
+            else:
+                # DDL and unrecognised statements are applied alone.
+                if current:
+                    result.append(current)
+                    current = Counter()
+                barriers += 1
+    if current:
+        result.append(current)
+    return result, barriers
+
+
+def critical_path(epoch_list, barriers: int, lanes: int) -> int:
+    total = barriers
+    for epoch in epoch_list:
+        load = [0] * lanes
+        for table, n in epoch.items():
+            load[zlib.crc32(table.encode()) % lanes] += n
+        total += max(load)
+    return total
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("segment")
+    parser.add_argument("--lanes", type=int, default=8)
+    parser.add_argument("--txn-barriers", action="store_true")
+    args = parser.parse_args()
+
+    p = Path(args.segment)
+    if not p.exists():
+        print("File not found")
+        sys.exit(1)
+
+    rows, txn_found, txn_missing = expand_txn_files(p, read_commandlog(p))
+    ops = list(classify(rows))
+    per_table = Counter(t for _, k, t in ops if k == "dml")
+    epoch_list, barriers = epochs(ops, args.txn_barriers)
+    serial = len(ops)
+
+    print(f"Segment: {p}")
+    print(f"ops={serial} dml={sum(per_table.values())} barriers={barriers} epochs={len(epoch_list)} tables={len(per_table)}")
+    if txn_found or txn_missing:
+        print(f"txn_files={txn_found} missing_txn_files={txn_missing}"
+              + (" (their REPLAY_TXN rows count as barriers)" if txn_missing else ""))
+    for table, n in per_table.most_common():
+        print(f"  {table}: {n}")
+
+    print("\nlanes critical_path speedup")
+    for lanes in range(1, args.lanes + 1):
+        cp = critical_path(epoch_list, barriers, lanes)
+        print(f"{lanes:>5} {cp:>13} {serial / cp if cp else 0:>7.2f}x")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,167 @@
+"""Estimate how many operations net-change compaction would remove from a backlog.
+
+Usage:
+    analyze_net_changes.py <segment.sqllog> [<segment.sqllog> ...] [--key-column id]
+
+Segments are read in the order given, as one compaction window (pass every
+segment of a device backlog to see the catch-up case). Each parameterized
+``INSERT`` / ``UPDATE`` / ``DELETE`` is keyed by (table, value bound to the key
+column) and the per-key history is folded into a single net operation:
+
+    INSERT .. DELETE                      -> nothing
+    INSERT .. (not ending in DELETE)      -> INSERT
+    UPDATE+                               -> UPDATE
+    UPDATE* .. DELETE                     -> DELETE
+    [UPDATE*] DELETE .. INSERT [UPDATE*]  -> DELETE + INSERT
+
+DDL on a table is a barrier: that table's pending keys are emitted before it.
+Statements that do not bind the key column (bulk ``UPDATE .. WHERE``, literal
+values, ``INSERT .. SELECT``, ...) cannot be folded; they are counted as-is and
+act as a barrier for their table. A statement whose table cannot be told at all
+is counted as-is and is a barrier for every table.
+
+``REPLAY_TXN`` control rows of multi-writer devices are replaced by the rows of
+the txn files they reference (see ``analyze_apply_lanes.py``). A control row
+whose txn file is missing counts as one unknown operation and is reported.
+"""
+import argparse
+import re
+import sqlite3
+import sys
+from collections import Counter
+from pathlib import Path
+
+from analyze_apply_lanes import REPLAY_TXN, expand_txn_files
+
+INSERT = re.compile(r"^\s*INSERT(?:\s+OR\s+\w+)?\s+INTO\s+([\w.\"`\[\]]+)\s*\(([^)]*)\)\s*VALUES\s*\(([^)]*)\)", re.I)
+UPDATE = re.compile(r"^\s*UPDATE\s+([\w.\"`\[\]]+)\s+SET\s+(.*)$", re.I | re.S)
+DELETE = re.compile(r"^\s*DELETE\s+FROM\s+([\w.\"`\[\]]+)(.*)$", re.I | re.S)
+DDL = re.compile(r"^\s*(?:CREATE|ALTER|DROP|TRUNCATE)\s+TABLE\s+(?:IF\s+(?:NOT\s+)?EXISTS\s+)?([\w.\"`\[\]]+)", re.I)
+TARGET = re.compile(r"^\s*(?:(?:INSERT(?:\s+OR\s+\w+)?|REPLACE|UPSERT)\s+INTO)\s+([\w.\"`\[\]]+)", re.I)
+UNKNOWN_TABLE = "(unknown table)"
+
+
+def ident(raw: str) -> str:
+    return raw.strip().strip('"`[]').lower()
+
+
+def where_key_arg(text: str, key: str):
+    """Return the 0-based arg index bound to ``key = ?`` in the WHERE clause of ``text``, or None."""
+    m = re.search(r"\bWHERE\b(.*)$", text, re.I | re.S)
+    if not m:
+        return None
+    where = m.group(1)
+    km = re.search(r"(?<!\w)[\"`\[]?" + re.escape(key) + r"[\"`\]]?\s*=\s*\?", where, re.I)
+    if not km:
+        return None
+    return text[:m.start(1)].count("?") + where[:km.start()].count("?")
+
+
+def template(sql: str, key: str):
+    """Parse a statement into (op, table, key_arg_index). key_arg_index is None when unfoldable."""
+    m = INSERT.match(sql)
+    if m:
+        cols = [ident(c) for c in m.group(2).split(",")]
+        vals = [v.strip() for v in m.group(3).split(",")]
+        if key in cols and len(vals) == len(cols) and all(v == "?" for v in vals):
+            return "I", ident(m.group(1)), cols.index(key)
+        return "I", ident(m.group(1)), None
+    m = UPDATE.match(sql)
+    if m:
+        return "U", ident(m.group(1)), where_key_arg(m.group(2), key)
+    m = DELETE.match(sql)
+    if m:
+        return "D", ident(m.group(1)), where_key_arg(m.group(2), key)
+    m = DDL.match(sql)
+    if m:
+        return "DDL", ident(m.group(1)), None
+    m = TARGET.match(sql)
+    return "OTHER", ident(m.group(1)) if m else None, None
+
+
+def fold(history: str) -> int:
+    """Number of operations a per-key history of I/U/D letters folds into."""
+    first, last = history[0], history[-1]
+    if last == "D":
+        return 0 if first == "I" else 1
+    if first != "I" and "DI" in history:
+        return 2
+    return 1
+
+
+def read_rows(path: Path):
+    conn = sqlite3.connect(str(path))
+    try:
+        cols = [r[1] for r in conn.execute("PRAGMA table_info(commandlog)")]
+        arg_cols = [c for c in cols if c.startswith("arg") and c != "argcnt"]
+        select = ", ".join(["commit_id", "sql"] + arg_cols)
+        yield from conn.execute(f"SELECT {select} FROM commandlog ORDER BY change_sequence_number")
+    finally:
+        conn.close()
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("segments", nargs="+")
+    parser.add_argument("--key-column", default="id")
+    args = parser.parse_args()
+    key = args.key_column.lower()
+
+    pending = {}  # (table, key value) -> I/U/D history
+    ops_in = Counter()
+    ops_out = Counter()
+    unfoldable = 0
+    as_is = 0
+    txn_found = txn_missing = 0
+
+    def flush(table=None):
+        for k in [k for k in pending if table is None or k[0] == table]:
+            ops_out[k[0]] += fold(pending.pop(k))
+
+    for seg in args.segments:
+        p = Path(seg)
+        if not p.exists():
+            print(f"File not found: {p}")
+            sys.exit(1)
+        rows, found, missing = expand_txn_files(p, read_rows(p), read_rows)
+        txn_found += found
+        txn_missing += missing
+        tpl = None
+        for _, sql, *argv in rows:
+            if sql:
+                tpl = ("OTHER", None, None) if REPLAY_TXN.match(sql) else template(sql, key)
+            if tpl is None:
+                continue
+            op, table, key_arg = tpl
+            if op in ("DDL", "OTHER"):
+                # Applied as-is; without a known table it may touch any pending key.
+                flush(table)
+                as_is += 1
+                ops_in[table or UNKNOWN_TABLE] += 1
+                ops_out[table or UNKNOWN_TABLE] += 1
+                continue
+            ops_in[table] += 1
+            if key_arg is None or key_arg >= len(argv):
+                # May touch any pending key of the table, so it is a barrier too.
+                flush(table)
+                unfoldable += 1
+                ops_out[table] += 1
+                continue
+            k = (table, argv[key_arg])
+            pending[k] = pending.get(k, "") + op
+    flush()
+
+    total_in = sum(ops_in.values())
+    total_out = sum(ops_out.values())
+    print(f"segments={len(args.segments)} key_column={key}")
+    print(f"ops_before={total_in} ops_after={total_out} unfoldable={unfoldable} as_is={as_is} "
+          f"removed={total_in - total_out} ({(total_in - total_out) / total_in if total_in else 0:.1%})")
+    if txn_found or txn_missing:
+        print(f"txn_files={txn_found} missing_txn_files={txn_missing}"
+              + (" (each counted as one as-is operation on an unknown table)" if txn_missing else ""))
+    for table, n in ops_in.most_common():
+        print(f"  {table}: {n} -> {ops_out[table]}")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,105 @@
+"""Simulate a per-device parsed-statement cache over SQL device segments.
+
+Usage:
+    analyze_statement_reuse.py <segment.sqllog> [<segment.sqllog> ...] [--capacity 16,64,256]
+
+Every ``commandlog`` row that carries SQL text is a lookup into an LRU cache keyed
+by (sql text, schema version of the table it targets). DDL on a table bumps that
+table's schema version, so plans cached before an ADD / RENAME / DROP COLUMN are
+never reused afterwards. Rows with an empty ``sql`` continue the previous
+statement and need no lookup at all.
+
+``REPLAY_TXN`` control rows of multi-writer devices are not statements: each
+is replaced by the rows of the txn file it references (see
+``analyze_apply_lanes.py``). Control rows whose txn file is missing are
+reported and left out of the lookups.
+
+For each capacity the script prints lookups, hits, misses and hit rate, which is
+the share of statement analyses a plan cache of that size would skip.
+"""
+import argparse
+import re
+import sys
+from collections import OrderedDict
+from pathlib import Path
+
+from analyze_apply_lanes import REPLAY_TXN, expand_txn_files, read_commandlog
+
+TARGET = re.compile(
+    r"^\s*(?:INSERT(?:\s+OR\s+\w+)?\s+INTO|REPLACE\s+INTO|UPDATE|DELETE\s+FROM|"
+    r"(?:CREATE|ALTER|DROP|TRUNCATE)\s+TABLE(?:\s+IF\s+(?:NOT\s+)?EXISTS)?)\s+([\w.\"`\[\]]+)",
+    re.I,
+)
+DDL = re.compile(r"^\s*(?:CREATE|ALTER|DROP|TRUNCATE)\b", re.I)
+
+
+class LruCache:
+    def __init__(self, capacity: int):
+        self.capacity = capacity
+        self.entries = OrderedDict()
+        self.hits = 0
+        self.misses = 0
+
+    def lookup(self, key) -> None:
+        if key in self.entries:
+            self.entries.move_to_end(key)
+            self.hits += 1
+            return
+        self.misses += 1
+        self.entries[key] = True
+        if len(self.entries) > self.capacity:
+            self.entries.popitem(last=False)
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("segments", nargs="+")
+    parser.add_argument("--capacity", default="16,64,256")
+    args = parser.parse_args()
+
+    caches = [LruCache(int(c)) for c in args.capacity.split(",")]
+    schema_version = {}
+    distinct = set()
+    continuations = 0
+    ddl = 0
+    txn_found = txn_missing = 0
+
+    for seg in args.segments:
+        p = Path(seg)
+        if not p.exists():
+            print(f"File not found: {p}")
+            sys.exit(1)
+        rows, found, missing = expand_txn_files(p, read_commandlog(p))
+        txn_found += found
+        txn_missing += missing
+        for _, sql in rows:
+            if not sql:
+                continuations += 1
+                continue
+            if REPLAY_TXN.match(sql):
+                continue  # txn file missing, counted above
+            m = TARGET.match(sql)
+            table = m.group(1).strip('"`[]').lower() if m else None
+            if DDL.match(sql):
+                ddl += 1
+                schema_version[table] = schema_version.get(table, 0) + 1
+                continue
+            distinct.add(sql)
+            key = (sql, schema_version.get(table, 0))
+            for cache in caches:
+                cache.lookup(key)
+
+    lookups = caches[0].hits + caches[0].misses if caches else 0
+    print(f"segments={len(args.segments)} lookups={lookups} continuation_rows={continuations} "
+          f"ddl={ddl} distinct_sql={len(distinct)}")
+    if txn_found or txn_missing:
+        print(f"txn_files={txn_found} missing_txn_files={txn_missing}"
+              + (" (their REPLAY_TXN rows are not counted as lookups)" if txn_missing else ""))
+    print("\ncapacity      hits    misses  hit_rate")
+    for cache in caches:
+        rate = cache.hits / lookups if lookups else 0
+        print(f"{cache.capacity:>8} {cache.hits:>9} {cache.misses:>9} {rate:>9.1%}")
+
+
+if __name__ == "__main__":
+    main()
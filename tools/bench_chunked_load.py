@@ -0,0 +1,322 @@
+"""Benchmark sequential vs parallel primary-key-chunked initial load from PostgreSQL.
+
+Usage:
+    bench_chunked_load.py seed [--rows 10000000] [--table-count 4]
+    bench_chunked_load.py run --mode sequential
+    bench_chunked_load.py run --mode chunked [--chunk-rows 1000000] [--max-connections 8]
+                              [--checkpoint load.ckpt] [--stop-after-chunks N] [--slot NAME]
+
+Connection: ``--host/--port/--user/--dbname`` (defaults match
+``bin/dst/postgresql/docker-start.sh``, which gives a local PostgreSQL to load
+from); the password comes from ``PGPASSWORD`` as usual for ``psql``.
+
+``sequential`` is today's DBReader full load: one cursor per table, tables one
+after the other. ``chunked`` splits every table into ``--pk`` ranges of about
+``--chunk-rows`` rows (range width from ``pg_class.reltuples``, so gaps in the
+key are tolerated; a table that was never analyzed has no estimate, so it is
+reported and split as if its keys were dense) and drains them with at most
+``--max-connections`` ``psql`` sessions. Chunks are queued round-robin across
+tables so several tables are in flight at once.
+
+Every chunk is a ``COPY (SELECT ...) TO STDOUT`` streamed through a pipe in
+1 MiB reads and only counted, so the numbers are extraction cost with bounded
+memory, not a client-side materialization.
+
+Consistency: a coordinator opens a replication connection and runs
+``CREATE_REPLICATION_SLOT ... LOGICAL pgoutput EXPORT_SNAPSHOT``. Every chunk
+(and the planning queries) runs ``SET TRANSACTION SNAPSHOT`` with the exported
+snapshot first, so all chunks of all tables see exactly the state at the
+slot's ``consistent_point``. That LSN is the handoff watermark: log-based CDC
+streaming from the slot starts right after the snapshot. The slot is
+temporary and dropped at the end unless ``--slot NAME`` asks for a permanent
+one to hand to the CDC phase (drop it with ``pg_drop_replication_slot`` when
+done; it retains WAL). This needs ``wal_level=logical`` and a user with
+``REPLICATION``; for the container, append ``-c wal_level=logical`` after the
+image name in ``docker-start.sh``. ``--no-snapshot`` turns all of this off to
+show what it costs; the watermark is then only ``pg_current_wal_lsn()`` taken
+before the first chunk, and chunks see whatever is committed when they run.
+
+``--checkpoint`` keeps the chunk plan and the finished chunks in a SQLite file;
+rerunning with the same file keeps the first run's boundaries and skips what
+is done. A snapshot does not survive its session, so a resumed run reads the
+remaining chunks from a new, later snapshot while the watermark stays the one
+recorded by the first run. CDC from that watermark replays changes the later
+chunks already contain, which only converges when they are applied as
+primary-key upserts, and only if the WAL since the watermark is still there,
+i.e. the first run used ``--slot``. The benchmark does not run the CDC phase
+and does not verify the handoff. ``--stop-after-chunks`` simulates a failed
+load.
+"""
+import argparse
+import os
+import shutil
+import sqlite3
+import statistics
+import subprocess
+import sys
+import tempfile
+import threading
+import time
+from concurrent.futures import ThreadPoolExecutor
+from itertools import zip_longest
+
+READ_BLOCK = 1 << 20
+TABLE_PREFIX = "bench_src_"
+
+
+def psql_cmd(args, replication: bool = False) -> list[str]:
+    dbname = f"dbname={args.dbname} replication=database" if replication else args.dbname
+    return [args.psql, "-X", "-q", "-A", "-t", "-v", "ON_ERROR_STOP=1",
+            "-h", args.host, "-p", str(args.port), "-U", args.user, "-d", dbname]
+
+
+def query(args, sql: str) -> list[str]:
+    out = subprocess.run(psql_cmd(args) + ["-c", sql], check=True, capture_output=True, text=True)
+    return [line for line in out.stdout.splitlines() if line]
+
+
+def snapshot_query(args, sql: str, snapshot_id: str | None) -> str:
+    """First output line of ``sql``, run inside the exported snapshot when there is one."""
+    if snapshot_id:
+        sql = (f"BEGIN ISOLATION LEVEL REPEATABLE READ;\nSET TRANSACTION SNAPSHOT '{snapshot_id}';\n"
+               f"{sql}\nCOMMIT;\n")
+    out = subprocess.run(psql_cmd(args) + ["-f", "-"], input=sql, check=True, capture_output=True, text=True)
+    return out.stdout.splitlines()[0]
+
+
+class Coordinator:
+    """Creates the logical slot and holds its exported snapshot open for the duration of the load.
+
+    The snapshot stays valid only until the next command on the replication
+    connection, so nothing else is sent after ``CREATE_REPLICATION_SLOT``.
+    psql block-buffers stdout on a pipe, so the answer is written with ``\\o`` to a
+    file that is renamed once complete rather than read back from the pipe.
+    """
+
+    def __init__(self, args, slot: str, temporary: bool):
+        self.proc = subprocess.Popen(psql_cmd(args, replication=True) + ["-f", "-"],
+                                     stdin=subprocess.PIPE, text=True)
+        self.tmp = tempfile.mkdtemp(prefix="synclite-chunked-load-")
+        self.seq = 0
+        self.lock = threading.Lock()
+        row = self.ask(f"CREATE_REPLICATION_SLOT {slot} {'TEMPORARY ' if temporary else ''}"
+                       f"LOGICAL pgoutput EXPORT_SNAPSHOT;")
+        _, self.watermark, self.snapshot_id, _ = row.split("|")
+
+    def ask(self, sql: str) -> str:
+        with self.lock:
+            self.seq += 1
+            out = os.path.join(self.tmp, str(self.seq))
+            self.proc.stdin.write(f"\\o {out}\n{sql}\n\\o\n\\! mv {out} {out}.done\n")
+            self.proc.stdin.flush()
+            while not os.path.exists(out + ".done"):
+                if self.proc.poll() is not None:
+                    raise RuntimeError(f"coordinator session ended while running: {sql}")
+                time.sleep(0.01)
+        with open(out + ".done") as f:
+            return f.readline().rstrip("\n")
+
+    def close(self) -> None:
+        self.proc.stdin.close()
+        self.proc.wait()
+        shutil.rmtree(self.tmp, ignore_errors=True)
+
+
+def seed(args) -> None:
+    for i in range(1, args.table_count + 1):
+        t = f"{TABLE_PREFIX}{i}"
+        start = time.perf_counter()
+        query(args, f"DROP TABLE IF EXISTS {t}; "
+                    f"CREATE TABLE {t}(id BIGINT PRIMARY KEY, account BIGINT, amount NUMERIC(12,2), "
+                    f"note TEXT, updated_at TIMESTAMPTZ); "
+                    f"INSERT INTO {t} SELECT g, g % 10000, (g % 100000) / 100.0, md5(g::text), "
+                    f"now() - g * interval '1 second' FROM generate_series(1, {args.rows}) g; "
+                    f"ANALYZE {t};")
+        print(f"seeded {t}: {args.rows} rows in {time.perf_counter() - start:.1f}s", file=sys.stderr)
+
+
+def plan(args, tables: list[str], ask) -> list[tuple[str, int | None, int | None]]:
+    """(table, lo, hi) chunks, hi exclusive; (table, None, None) is a whole-table read."""
+    if args.mode == "sequential":
+        return [(t, None, None) for t in tables]
+    per_table = []
+    for t in tables:
+        lo, hi, est = ask(f"SELECT coalesce(min({args.pk}), 0) || '|' || coalesce(max({args.pk}), -1) || '|' || "
+                          f"(SELECT reltuples::bigint FROM pg_class WHERE oid = '{t}'::regclass) "
+                          f"FROM {t};").split("|")
+        lo, hi, est = int(lo), int(hi), int(est)
+        if est <= 0 and hi >= lo:
+            # -1 (0 before PostgreSQL 14): never analyzed, so there is no estimate to size chunks by.
+            print(f"warning: {t} has no row estimate (reltuples = {est}); run ANALYZE {t}. "
+                  f"Splitting it as if {args.pk} were dense.", file=sys.stderr)
+            est = hi - lo + 1
+        width = max(1, -(-(hi - lo + 1) * args.chunk_rows // est))
+        per_table.append([(t, a, min(a + width, hi + 1)) for a in range(lo, hi + 1, width)])
+    # Round-robin across tables so a small table does not wait behind a large one.
+    return [c for group in zip_longest(*per_table) for c in group if c is not None]
+
+
+def run_chunk(args, chunk, snapshot_id: str | None) -> tuple[int, int, float]:
+    table, lo, hi = chunk
+    where = f" WHERE {args.pk} >= {lo} AND {args.pk} < {hi}" if lo is not None else ""
+    script = ""
+    if snapshot_id:
+        script += (f"BEGIN ISOLATION LEVEL REPEATABLE READ;\n"
+                   f"SET TRANSACTION SNAPSHOT '{snapshot_id}';\n")
+    script += f"COPY (SELECT * FROM {table}{where}) TO STDOUT;\n"
+    if snapshot_id:
+        script += "COMMIT;\n"
+    start = time.perf_counter()
+    proc = subprocess.Popen(psql_cmd(args) + ["-f", "-"], stdin=subprocess.PIPE, stdout=subprocess.PIPE)
+    proc.stdin.write(script.encode())
+    proc.stdin.close()
+    rows = nbytes = 0
+    while True:
+        block = proc.stdout.read(READ_BLOCK)
+        if not block:
+            break
+        nbytes += len(block)
+        rows += block.count(b"\n")
+    if proc.wait() != 0:
+        raise RuntimeError(f"psql failed on {table} [{lo}, {hi})")
+    return rows, nbytes, time.perf_counter() - start
+
+
+class Checkpoint:
+    """The chunk plan and which chunks finished, so a failed load resumes on the same boundaries."""
+
+    def __init__(self, path: str | None):
+        self.db = sqlite3.connect(path or ":memory:", check_same_thread=False)
+        self.lock = threading.Lock()
+        self.db.execute("CREATE TABLE IF NOT EXISTS chunk(seq INTEGER PRIMARY KEY, tbl TEXT, lo INTEGER, "
+                        "hi INTEGER, rows INTEGER, bytes INTEGER, done INTEGER DEFAULT 0)")
+        self.db.execute("CREATE TABLE IF NOT EXISTS handoff(watermark TEXT)")
+        self.db.commit()
+
+    def watermark(self, current: str | None) -> str | None:
+        row = self.db.execute("SELECT watermark FROM handoff").fetchone()
+        if row:
+            return row[0]
+        if current:
+            self.db.execute("INSERT INTO handoff VALUES(?)", (current,))
+            self.db.commit()
+        return current
+
+    def plan(self, make_plan) -> list[tuple[int, tuple]]:
+        """(seq, chunk) for every planned chunk, planning only when the checkpoint has none yet."""
+        rows = self.db.execute("SELECT seq, tbl, lo, hi FROM chunk ORDER BY seq").fetchall()
+        if not rows:
+            self.db.executemany("INSERT INTO chunk(seq, tbl, lo, hi) VALUES(?, ?, ?, ?)",
+                                [(i, *c) for i, c in enumerate(make_plan())])
+            self.db.commit()
+            rows = self.db.execute("SELECT seq, tbl, lo, hi FROM chunk ORDER BY seq").fetchall()
+        return [(seq, (tbl, lo, hi)) for seq, tbl, lo, hi in rows]
+
+    def finished(self) -> set[int]:
+        return {seq for (seq,) in self.db.execute("SELECT seq FROM chunk WHERE done = 1")}
+
+    def record(self, seq: int, rows: int, nbytes: int) -> None:
+        with self.lock:
+            self.db.execute("UPDATE chunk SET rows = ?, bytes = ?, done = 1 WHERE seq = ?", (rows, nbytes, seq))
+            self.db.commit()
+
+
+def run(args) -> int:
+    ckpt = Checkpoint(args.checkpoint)
+    resumed = ckpt.watermark(None) is not None
+    coordinator = None
+    if args.snapshot:
+        # A resumed run only needs a fresh snapshot; the slot the CDC phase starts from is the first run's.
+        temporary = resumed or not args.slot
+        coordinator = Coordinator(args, f"synclite_bench_{os.getpid()}" if temporary else args.slot, temporary)
+    try:
+        snapshot_id = coordinator.snapshot_id if coordinator else None
+
+        def ask(sql):
+            return snapshot_query(args, sql, snapshot_id)
+
+        tables = args.tables.split(",") if args.tables else \
+            ask(f"SELECT string_agg(tablename, ',' ORDER BY tablename) FROM pg_tables "
+                f"WHERE tablename LIKE '{TABLE_PREFIX}%';").split(",")
+        if tables == [""]:
+            print("no source tables; run 'seed' first or pass --tables", file=sys.stderr)
+            return 1
+
+        watermark = ckpt.watermark(coordinator.watermark if coordinator else
+                                   query(args, "SELECT pg_current_wal_lsn();")[0])
+        chunks = ckpt.plan(lambda: plan(args, tables, ask))
+        done = ckpt.finished()
+        todo = [(seq, c) for seq, c in chunks if seq not in done]
+        if args.stop_after_chunks is not None:
+            todo = todo[:args.stop_after_chunks]
+        workers = 1 if args.mode == "sequential" else args.max_connections
+        print(f"{args.mode}: {len(tables)} tables, {len(chunks)} chunks, {len(done)} already done "
+              f"per checkpoint, {workers} reader connection(s)", file=sys.stderr)
+
+        finished = {}
+        stats = []
+        start = time.perf_counter()
+
+        def one(item):
+            seq, chunk = item
+            rows, nbytes, secs = run_chunk(args, chunk, snapshot_id)
+            ckpt.record(seq, rows, nbytes)
+            return chunk, rows, nbytes, secs, time.perf_counter() - start
+
+        with ThreadPoolExecutor(max_workers=workers) as pool:
+            for chunk, rows, nbytes, secs, at in pool.map(one, todo):
+                stats.append((rows, nbytes, secs))
+                finished[chunk[0]] = max(finished.get(chunk[0], 0.0), at)
+        elapsed = time.perf_counter() - start
+    finally:
+        if coordinator:
+            coordinator.close()
+
+    rows = sum(s[0] for s in stats)
+    nbytes = sum(s[1] for s in stats)
+    secs = sorted(s[2] for s in stats) or [0.0]
+    print(f"{'mode':<11}{'chunks':>8}{'rows':>14}{'rows/s':>13}{'MiB/s':>9}{'chunk p50 s':>13}{'chunk p99 s':>13}")
+    print(f"{args.mode:<11}{len(stats):>8}{rows:>14,}{rows / elapsed if elapsed else 0:>13,.0f}"
+          f"{nbytes / 1048576 / elapsed if elapsed else 0:>9.1f}{statistics.median(secs):>13.2f}"
+          f"{secs[min(len(secs) - 1, int(len(secs) * 0.99))]:>13.2f}")
+    for t in sorted(finished):
+        print(f"  {t:<30} done at {finished[t]:8.1f}s")
+    print(f"CDC handoff LSN{' (recorded by the first run)' if resumed else ''}: {watermark}")
+    remaining = len(chunks) - len(done) - len(stats)
+    if remaining > 0:
+        print(f"{remaining} chunk(s) left; rerun with the same --checkpoint to resume", file=sys.stderr)
+    return 0
+
+
+def main() -> int:
+    ap = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    ap.add_argument("command", choices=["seed", "run"])
+    ap.add_argument("--psql", default="psql")
+    ap.add_argument("--host", default="127.0.0.1")
+    ap.add_argument("--port", type=int, default=5432)
+    ap.add_argument("--user", default="synclite")
+    ap.add_argument("--dbname", default="synclitedb")
+    ap.add_argument("--rows", type=int, default=10_000_000, help="seed: rows per table")
+    ap.add_argument("--table-count", type=int, default=4, help="seed: number of bench_src_N tables")
+    ap.add_argument("--tables", help=f"run: comma-separated tables (default: all {TABLE_PREFIX}*)")
+    ap.add_argument("--pk", default="id", help="run: integer primary-key column to split on")
+    ap.add_argument("--mode", choices=["sequential", "chunked"], default="chunked")
+    ap.add_argument("--chunk-rows", type=int, default=1_000_000)
+    ap.add_argument("--max-connections", type=int, default=8,
+                    help="reader sessions per source; the snapshot coordinator adds one more")
+    ap.add_argument("--no-snapshot", dest="snapshot", action="store_false")
+    ap.add_argument("--slot", help="run: create this permanent logical slot for the CDC phase "
+                                   "(default: a temporary slot dropped at the end)")
+    ap.add_argument("--checkpoint", help="SQLite file of finished chunks; reuse it to resume")
+    ap.add_argument("--stop-after-chunks", type=int, help="stop early, as if the load had failed")
+    args = ap.parse_args()
+    if "PGPASSWORD" not in os.environ:
+        print("note: PGPASSWORD is not set; psql may prompt for a password", file=sys.stderr)
+    if args.command == "seed":
+        seed(args)
+        return 0
+    return run(args)
+
+
+if __name__ == "__main__":
+    sys.exit(main())
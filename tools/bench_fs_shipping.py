@@ -0,0 +1,123 @@
+"""Measure how fast a backlog of log segments drains into an FS stage.
+
+Usage:
+    bench_fs_shipping.py [--segments N] [--segment-mb M] [--workers W] [--src D] [--dst D]
+
+A backlog of ``N`` segment files of ``M`` MB each (the state a device is in after a
+network outage) is shipped to a destination directory three ways:
+
+- ``serial-heap``     one file at a time through a user-space read/write buffer,
+- ``serial-zerocopy`` one file at a time through ``shutil.copyfile`` (sendfile /
+                      copy_file_range on Linux, so the bytes never enter the process),
+- ``parallel``        ``W`` zero-copy uploads in flight at once.
+
+Each run prints the time to drain the backlog, segments/sec and MB/sec. ``--dst``
+can point at any mounted directory, e.g. an sshfs mount of the SFTP stage from
+``bin/stage/sftp``, to include the network in the measurement. ``--src`` and
+``--dst`` must be empty; only their contents are removed between and after runs,
+never the directories themselves, so a mount point stays usable.
+"""
+import argparse
+import os
+import shutil
+import sys
+import tempfile
+import time
+from concurrent.futures import ThreadPoolExecutor
+from pathlib import Path
+
+HEAP_BUFFER = 64 * 1024
+
+
+def clear(d: Path) -> None:
+    """Remove everything inside ``d`` but keep ``d``, which may be a mount point."""
+    for entry in d.iterdir():
+        if entry.is_dir() and not entry.is_symlink():
+            shutil.rmtree(entry)
+        else:
+            entry.unlink()
+
+
+def make_backlog(src: Path, segments: int, segment_mb: int) -> list:
+    src.mkdir(parents=True, exist_ok=True)
+    block = os.urandom(1024 * 1024)
+    files = []
+    for i in range(segments):
+        f = src / f"{i}.sqllog"
+        with open(f, "wb") as out:
+            for _ in range(segment_mb):
+                out.write(block)
+        files.append(f)
+    return files
+
+
+def copy_heap(f: Path, dst: Path) -> None:
+    with open(f, "rb") as inp, open(dst / f.name, "wb") as out:
+        while True:
+            buf = inp.read(HEAP_BUFFER)
+            if not buf:
+                break
+            out.write(buf)
+        out.flush()
+        os.fsync(out.fileno())
+
+
+def copy_zerocopy(f: Path, dst: Path) -> None:
+    target = dst / f.name
+    shutil.copyfile(f, target)
+    fd = os.open(target, os.O_RDONLY)
+    try:
+        os.fsync(fd)
+    finally:
+        os.close(fd)
+
+
+def run(label: str, files: list, dst: Path, workers: int, copy) -> None:
+    dst.mkdir(parents=True, exist_ok=True)
+    clear(dst)
+    total_mb = sum(f.stat().st_size for f in files) / (1024 * 1024)
+    start = time.perf_counter()
+    if workers == 1:
+        for f in files:
+            copy(f, dst)
+    else:
+        with ThreadPoolExecutor(max_workers=workers) as pool:
+            list(pool.map(lambda f: copy(f, dst), files))
+    elapsed = time.perf_counter() - start
+    print(
+        f"{label:<16} workers={workers} segments={len(files)} drain_s={elapsed:.3f} "
+        f"segments_per_s={len(files) / elapsed:,.1f} mb_per_s={total_mb / elapsed:,.1f}"
+    )
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("--segments", type=int, default=64)
+    parser.add_argument("--segment-mb", type=int, default=4)
+    parser.add_argument("--workers", type=int, default=8)
+    parser.add_argument("--src", help="directory to create the backlog in (default: temp dir)")
+    parser.add_argument("--dst", help="stage directory to ship into (default: temp dir)")
+    args = parser.parse_args()
+
+    tmp = tempfile.TemporaryDirectory(prefix="synclite_ship_bench_")
+    src = Path(args.src) if args.src else Path(tmp.name) / "src"
+    dst = Path(args.dst) if args.dst else Path(tmp.name) / "dst"
+    for label, d in (("Source", args.src), ("Destination", args.dst)):
+        if d and Path(d).exists() and any(Path(d).iterdir()):
+            print(f"{label} is not empty, refusing to overwrite: {d}")
+            sys.exit(1)
+
+    try:
+        files = make_backlog(src, args.segments, args.segment_mb)
+        run("serial-heap", files, dst, 1, copy_heap)
+        run("serial-zerocopy", files, dst, 1, copy_zerocopy)
+        run("parallel", files, dst, args.workers, copy_zerocopy)
+    finally:
+        for d in (src, dst):
+            if d.exists():
+                clear(d)
+        tmp.cleanup()
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,613 @@
+"""Benchmark QReader-style MQTT ingest: inline per-message writes vs a staged, batched pipeline.
+
+Usage:
+    bench_mqtt_ingest.py [--pipeline both] [--messages 200000] [--sensors 10000] [--qos 1]
+    bench_mqtt_ingest.py --broker 127.0.0.1:1883 --username synclite --password synclite ...
+    bench_mqtt_ingest.py --pipeline staged --parsers 4 --batch-size 5000 --linger-ms 50 --rate 20000
+    bench_mqtt_ingest.py --crash-after 50000
+
+A fleet of ``--sensors`` simulated sensors publishes CSV payloads
+``<ts_ns>,<sensor>,<v1>,<v2>,<seq>`` to ``sensors/<sensor>/<kind>`` from
+``--publishers`` connections in a separate process. One subscriber on
+``sensors/#`` - the process under test - writes every message into a SQLite
+file (WAL, ``synchronous=FULL``, one table per ``<kind>``) in one of two ways:
+
+- ``inline``: what QReader does today. The callback thread parses the payload,
+  inserts the row, commits and acknowledges, one message at a time.
+- ``staged``: the callback thread only appends the raw payload to a bounded
+  queue (``--queue-size``; when full, the socket is no longer read and the
+  broker slows down). ``--parsers`` threads split payloads as bytes and convert
+  fields with ``int()``/``float()`` directly, without decoding to ``str``. One
+  writer groups parsed rows by topic -> table and commits up to
+  ``--batch-size`` rows, or what it has after ``--linger-ms``, in one
+  transaction. QoS 1 PUBACKs are sent only after that commit, and in arrival
+  order as MQTT requires.
+
+The subscriber connects with a fixed client id and CleanSession cleared, so
+the broker keeps its session across a disconnect and resends every QoS 1
+message it has not seen a PUBACK for once the subscriber is back. Acking after
+the commit only avoids loss because of that session: with CleanSession set,
+unacknowledged messages are discarded when the connection drops.
+
+``--crash-after N`` exercises that path. Once N messages have arrived, the
+subscriber drops its connection without a DISCONNECT right before the next
+commit (rolling back the open batch, as a killed process would) and
+reconnects with the same client id. The broker must then redeliver everything
+that was not committed and acknowledged.
+
+Reported per pipeline: distinct messages committed and messages/s from the
+first publish to the last commit, end-to-end latency p50/p99 (publish
+timestamp in the payload to first commit), the share of wall time the callback
+thread was busy, the mean batch size, ``lost`` (published but never committed;
+0 at QoS 1) and ``dups`` (committed again after a redelivery because their
+PUBACK had not been sent yet - expected with at-least-once delivery).
+
+Without ``--broker`` an embedded broker stand-in runs in its own process
+(MQTT 3.1.1, QoS 0/1, persistent sessions held in memory, no in-flight cap).
+``bin/src/mosquitto/docker-start.sh``
+starts a real Mosquitto configured with ``max_inflight_messages 0``; with the
+default cap of 20, deferred acks would limit every staged batch to 20 messages.
+The parser pool runs on Python threads here, so it shows the decoupling of the
+callback thread rather than real parallel parse speedup.
+"""
+import argparse
+import asyncio
+import collections
+import heapq
+import multiprocessing as mp
+import os
+import queue
+import random
+import socket
+import sqlite3
+import struct
+import sys
+import tempfile
+import threading
+import time
+
+CONNECT, CONNACK, PUBLISH, PUBACK, SUBSCRIBE, SUBACK, PINGREQ, PINGRESP, DISCONNECT = 1, 2, 3, 4, 8, 9, 12, 13, 14
+KINDS = ("temperature", "humidity", "pressure")
+# The subscriber under test is already running threads when the publishers start; fork would copy their locks.
+MP = mp.get_context("spawn")
+TOPIC_FILTER = b"sensors/#"
+# Fixed so a reconnect resumes the broker-side session, as a restarted QReader job would.
+SUBSCRIBER_ID = "synclite-qreader-bench"
+
+
+# ---- MQTT 3.1.1 framing ------------------------------------------------------
+
+def encode_len(n: int) -> bytes:
+    out = bytearray()
+    while True:
+        b, n = n % 128, n // 128
+        out.append(b | 0x80 if n else b)
+        if not n:
+            return bytes(out)
+
+
+def mqtt_str(s: bytes) -> bytes:
+    return struct.pack("!H", len(s)) + s
+
+
+def packet(ptype: int, flags: int, body: bytes) -> bytes:
+    return bytes([ptype << 4 | flags]) + encode_len(len(body)) + body
+
+
+def read_packet(rfile):
+    head = rfile.read(1)
+    if not head:
+        return None
+    n, mult = 0, 1
+    while True:
+        b = rfile.read(1)[0]
+        n += (b & 127) * mult
+        if b < 128:
+            break
+        mult *= 128
+    return head[0] >> 4, head[0] & 15, rfile.read(n)
+
+
+def split_publish(flags: int, body: bytes):
+    tlen = struct.unpack_from("!H", body)[0]
+    topic = body[2:2 + tlen]
+    off = 2 + tlen
+    pid = None
+    if (flags >> 1) & 3:
+        pid = struct.unpack_from("!H", body, off)[0]
+        off += 2
+    return topic, pid, body[off:]
+
+
+def topic_matches(filt: bytes, topic: bytes) -> bool:
+    f, t = filt.split(b"/"), topic.split(b"/")
+    for i, level in enumerate(f):
+        if level == b"#":
+            return True
+        if i >= len(t) or (level != b"+" and level != t[i]):
+            return False
+    return len(f) == len(t)
+
+
+class MqttClient:
+    def __init__(self, host: str, port: int, client_id: str, username: str | None, password: str | None,
+                 clean: bool = True):
+        self.sock = socket.create_connection((host, port))
+        self.sock.setsockopt(socket.IPPROTO_TCP, socket.TCP_NODELAY, 1)
+        self.rfile = self.sock.makefile("rb", buffering=1 << 16)
+        self.send_lock = threading.Lock()
+        self.closed = False
+        flags = (0x02 if clean else 0) | (0x80 if username else 0) | (0x40 if password else 0)
+        # Keep-alive 0: no PINGREQ needed however long a run takes.
+        body = mqtt_str(b"MQTT") + bytes([4, flags]) + struct.pack("!H", 0) + mqtt_str(client_id.encode())
+        if username:
+            body += mqtt_str(username.encode())
+        if password:
+            body += mqtt_str(password.encode())
+        self.send(packet(CONNECT, 0, body))
+        reply = read_packet(self.rfile)
+        if reply is None or reply[0] != CONNACK or reply[2][1] != 0:
+            raise RuntimeError(f"broker refused connection: {reply}")
+        self.session_present = bool(reply[2][0] & 1)
+
+    def send(self, data: bytes) -> None:
+        with self.send_lock:
+            self.sock.sendall(data)
+
+    def publish(self, topic: bytes, payload: bytes, qos: int, pid: int) -> None:
+        body = mqtt_str(topic) + (struct.pack("!H", pid) if qos else b"") + payload
+        self.send(packet(PUBLISH, qos << 1, body))
+
+    def subscribe(self, filt: bytes, qos: int) -> None:
+        self.send(packet(SUBSCRIBE, 2, struct.pack("!H", 1) + mqtt_str(filt) + bytes([qos])))
+        reply = read_packet(self.rfile)
+        if reply is None or reply[0] != SUBACK or reply[2][2] == 0x80:
+            raise RuntimeError(f"subscribe failed: {reply}")
+
+    def pubacks(self, pids) -> None:
+        data = b"".join(packet(PUBACK, 0, struct.pack("!H", pid)) for pid in pids)
+        if data:
+            self.send(data)
+
+    def close(self) -> None:
+        self.closed = True
+        try:
+            self.send(packet(DISCONNECT, 0, b""))
+        except OSError:
+            pass
+        self.sock.close()
+
+    def abort(self) -> None:
+        """Drops the connection the way a killed process does: no DISCONNECT, no pending PUBACKs."""
+        self.closed = True
+        try:
+            self.sock.shutdown(socket.SHUT_RDWR)
+        except OSError:
+            pass
+        self.sock.close()
+
+
+# ---- embedded broker stand-in -------------------------------------------------
+
+class Session:
+    """Broker-side state of one client id; outlives the connection unless CleanSession was set."""
+
+    def __init__(self, clean: bool):
+        self.clean = clean
+        self.writer = None
+        self.subs = {}  # filter -> granted qos
+        self.inflight = {}  # pid -> (topic, payload), in send order, until PUBACK
+        self.offline = collections.deque()  # (topic, payload, qos) queued while disconnected
+        self.next_pid = 0
+
+    def send(self, topic: bytes, payload: bytes, qos: int, pid: int | None = None) -> None:
+        if not qos:
+            self.writer.write(packet(PUBLISH, 0, mqtt_str(topic) + payload))
+            return
+        dup = pid is not None
+        if not dup:
+            pid = self.next_pid % 65535 + 1
+            while pid in self.inflight:
+                pid = pid % 65535 + 1
+            self.next_pid = pid
+            self.inflight[pid] = (topic, payload)
+        self.writer.write(packet(PUBLISH, (0x08 if dup else 0) | qos << 1,
+                                 mqtt_str(topic) + struct.pack("!H", pid) + payload))
+
+
+def broker_main(port_queue) -> None:
+    sessions = {}  # client id -> Session
+
+    async def handle(reader, writer):
+        client_id, session = None, None
+        try:
+            while True:
+                head = await reader.readexactly(1)
+                n, mult = 0, 1
+                while True:
+                    b = (await reader.readexactly(1))[0]
+                    n += (b & 127) * mult
+                    if b < 128:
+                        break
+                    mult *= 128
+                body = await reader.readexactly(n) if n else b""
+                ptype, flags = head[0] >> 4, head[0] & 15
+                if ptype == CONNECT:
+                    off = 2 + struct.unpack_from("!H", body)[0]
+                    clean = bool(body[off + 1] & 0x02)
+                    off += 4
+                    client_id = body[off + 2:off + 2 + struct.unpack_from("!H", body, off)[0]]
+                    old = sessions.get(client_id)
+                    if old is not None and old.writer is not None:
+                        old.writer.close()  # session takeover
+                    resumed = not clean and old is not None and not old.clean
+                    session = old if resumed else Session(clean)
+                    sessions[client_id] = session
+                    session.writer = writer
+                    writer.write(packet(CONNACK, 0, bytes([resumed, 0])))
+                    if resumed:
+                        for pid, (topic, payload) in list(session.inflight.items()):
+                            session.send(topic, payload, 1, pid)
+                        while session.offline:
+                            session.send(*session.offline.popleft())
+                    await writer.drain()
+                elif ptype == SUBSCRIBE:
+                    tlen = struct.unpack_from("!H", body, 2)[0]
+                    qos = body[4 + tlen]
+                    session.subs[body[4:4 + tlen]] = qos
+                    writer.write(packet(SUBACK, 0, body[:2] + bytes([qos])))
+                    await writer.drain()
+                elif ptype == PUBLISH:
+                    topic, pid, payload = split_publish(flags, body)
+                    qos = (flags >> 1) & 3
+                    if qos:
+                        writer.write(packet(PUBACK, 0, struct.pack("!H", pid)))
+                        await writer.drain()
+                    for sub in list(sessions.values()):
+                        granted = [q for f, q in sub.subs.items() if topic_matches(f, topic)]
+                        if not granted:
+                            continue
+                        q = min(qos, max(granted))
+                        out = sub.writer
+                        if out is None or out.is_closing():
+                            if q:
+                                sub.offline.append((topic, payload, q))
+                            continue
+                        sub.send(topic, payload, q)
+                        # Backpressure: a slow subscriber slows its publishers down.
+                        try:
+                            await out.drain()
+                        except ConnectionError:
+                            pass  # its un-acked messages stay in flight for the next connection
+                elif ptype == PUBACK:
+                    # Only read: draining a subscriber's own outbound buffer here would stop
+                    # reading the acks it is blocked sending.
+                    session.inflight.pop(struct.unpack_from("!H", body)[0], None)
+                elif ptype == PINGREQ:
+                    writer.write(packet(PINGRESP, 0, b""))
+                    await writer.drain()
+                elif ptype == DISCONNECT:
+                    break
+        except (asyncio.IncompleteReadError, ConnectionError):
+            pass
+        finally:
+            if session is not None and session.writer is writer:
+                session.writer = None
+                if session.clean and sessions.get(client_id) is session:
+                    del sessions[client_id]
+            writer.close()
+
+    async def serve():
+        server = await asyncio.start_server(handle, "127.0.0.1", 0)
+        port_queue.put(server.sockets[0].getsockname()[1])
+        async with server:
+            await server.serve_forever()
+
+    asyncio.run(serve())
+
+
+# ---- publisher fleet ------------------------------------------------------------
+
+def drain_acks(client: MqttClient) -> None:
+    """Reads the broker's PUBACKs so they never back up a publisher's socket."""
+    try:
+        while read_packet(client.rfile) is not None:
+            pass
+    except (OSError, ValueError, IndexError):
+        pass
+
+
+def publishers_main(args, start_queue) -> None:
+    host, port = args.host, args.port
+    per_pub = [args.messages // args.publishers + (1 if i < args.messages % args.publishers else 0)
+               for i in range(args.publishers)]
+    ready = threading.Barrier(args.publishers + 1)
+
+    def run(idx: int, count: int) -> None:
+        client = MqttClient(host, port, f"bench-pub-{os.getpid()}-{idx}", args.username, args.password)
+        acks = threading.Thread(target=drain_acks, args=(client,), daemon=True)
+        acks.start()
+        sensors = range(idx, args.sensors, args.publishers) or [idx]
+        topics = [f"sensors/{s}/{KINDS[s % len(KINDS)]}".encode() for s in sensors]
+        rnd = random.Random(idx)
+        interval = args.publishers / args.rate if args.rate else 0.0
+        ready.wait()
+        t0 = time.perf_counter()
+        for i in range(count):
+            if interval:
+                delay = t0 + i * interval - time.perf_counter()
+                if delay > 0:
+                    time.sleep(delay)
+            k = i % len(topics)
+            payload = (f"{time.time_ns()},{sensors[k]},{rnd.uniform(-20, 40):.2f},"
+                       f"{rnd.uniform(0, 100):.2f},{i}").encode()
+            client.publish(topics[k], payload, args.qos, i % 65535 + 1)
+        # Closing with PUBACKs still unread would reset the connection and drop publishes the
+        # broker has not read yet; half-close and wait for the broker to hang up instead.
+        client.send(packet(DISCONNECT, 0, b""))
+        client.sock.shutdown(socket.SHUT_WR)
+        acks.join()
+        client.sock.close()
+
+    threads = [threading.Thread(target=run, args=(i, c)) for i, c in enumerate(per_pub)]
+    for t in threads:
+        t.start()
+    ready.wait()
+    start_queue.put(time.time_ns())
+    for t in threads:
+        t.join()
+
+
+# ---- subscriber under test --------------------------------------------------------
+
+class Sink:
+    """Stand-in for the QReader device: one table per topic kind, durable commits."""
+
+    def __init__(self, path: str):
+        self.db = sqlite3.connect(path, isolation_level=None, check_same_thread=False)
+        self.db.execute("PRAGMA journal_mode=WAL")
+        self.db.execute("PRAGMA synchronous=FULL")
+        for kind in KINDS:
+            self.db.execute(f"CREATE TABLE {kind}(sensor_id INTEGER, ts_ns INTEGER, v1 REAL, v2 REAL, seq INTEGER)")
+        self.inserts = {k: f"INSERT INTO {k} VALUES(?, ?, ?, ?, ?)" for k in KINDS}
+        self.tables = {}
+
+    def table_for(self, topic: bytes) -> str:
+        table = self.tables.get(topic)
+        if table is None:
+            table = self.tables[topic] = topic.rsplit(b"/", 1)[1].decode()
+        return table
+
+    def close(self) -> None:
+        self.db.close()
+
+
+def parse(payload: bytes) -> tuple:
+    f = payload.split(b",")
+    return int(f[1]), int(f[0]), float(f[2]), float(f[3]), int(f[4])
+
+
+class Subscriber:
+    def __init__(self, args, sink: Sink, start_pipeline):
+        self.args = args
+        self.sink = sink
+        self.start_pipeline = start_pipeline
+        self.seen = set()  # (sensor_id, seq) of every committed message
+        self.latencies = []
+        self.committed = 0
+        self.duplicates = 0
+        self.received = 0
+        self.crashed = False
+        self.batches = 0
+        self.callback_busy = 0.0
+        self.done = threading.Event()
+        self.last_commit_ns = 0
+        # Start from an empty session: a clean connect discards whatever an earlier run left behind.
+        MqttClient(args.host, args.port, SUBSCRIBER_ID, args.username, args.password).close()
+        self.connect()
+
+    def connect(self) -> None:
+        self.client = MqttClient(self.args.host, self.args.port, SUBSCRIBER_ID, self.args.username,
+                                 self.args.password, clean=False)
+        # A resumed session keeps its subscription, and the broker may already be redelivering.
+        if not self.client.session_present:
+            self.client.subscribe(TOPIC_FILTER, self.args.qos)
+        self.start_pipeline(self, self.client)
+
+    def should_crash(self) -> bool:
+        return bool(self.args.crash_after) and not self.crashed and self.received >= self.args.crash_after
+
+    def crash(self, client: MqttClient) -> None:
+        """Kills the current connection before a commit and comes back as a restarted job would."""
+        self.crashed = True
+        client.abort()
+        self.connect()
+
+    def committed_rows(self, rows: list[tuple]) -> None:
+        now = time.time_ns()
+        self.last_commit_ns = now
+        for r in rows:
+            key = (r[0], r[4])
+            if key in self.seen:
+                self.duplicates += 1
+            else:
+                self.seen.add(key)
+                self.latencies.append(now - r[1])
+        self.committed += len(rows)
+        self.batches += 1
+        if len(self.seen) >= self.args.messages:
+            self.done.set()
+
+    def read_loop(self, client: MqttClient, on_message) -> None:
+        rfile = client.rfile
+        try:
+            while not client.closed:
+                pkt = read_packet(rfile)
+                if pkt is None:
+                    return
+                ptype, flags, body = pkt
+                if ptype != PUBLISH:
+                    continue
+                self.received += 1
+                t = time.perf_counter()
+                topic, pid, payload = split_publish(flags, body)
+                on_message(topic, pid, payload)
+                self.callback_busy += time.perf_counter() - t
+        except (OSError, ValueError, IndexError):
+            if not client.closed:
+                raise
+
+
+def run_inline(sub: Subscriber, client: MqttClient) -> None:
+    sink, db = sub.sink, sub.sink.db
+
+    def on_message(topic, pid, payload):
+        if sub.should_crash():
+            sub.crash(client)
+            return
+        row = parse(payload)
+        # Autocommit connection: every insert is its own durable transaction.
+        db.execute(sink.inserts[sink.table_for(topic)], row)
+        if pid is not None:
+            client.pubacks((pid,))
+        sub.committed_rows([row])
+
+    threading.Thread(target=sub.read_loop, args=(client, on_message), daemon=True).start()
+
+
+def run_staged(sub: Subscriber, client: MqttClient) -> None:
+    args, sink, db = sub.args, sub.sink, sub.sink.db
+    raw = queue.Queue(maxsize=args.queue_size)
+    parsed = queue.Queue(maxsize=args.queue_size)
+    seq = iter(range(1 << 62))
+
+    def on_message(topic, pid, payload):
+        raw.put((next(seq), topic, pid, payload))
+
+    def parser():
+        while True:
+            s, topic, pid, payload = raw.get()
+            parsed.put((s, sink.table_for(topic), pid, parse(payload)))
+
+    def writer():
+        pending_acks = []  # heap of (seq, pid) committed but not yet acknowledged
+        next_ack = 0
+        linger = args.linger_ms / 1000
+        while True:
+            batch = [parsed.get()]
+            deadline = time.perf_counter() + linger
+            while len(batch) < args.batch_size:
+                try:
+                    batch.append(parsed.get(timeout=max(0.0, deadline - time.perf_counter())))
+                except queue.Empty:
+                    break
+            by_table = {}
+            for _, table, _, row in batch:
+                by_table.setdefault(table, []).append(row)
+            db.execute("BEGIN")
+            for table, rows in by_table.items():
+                db.executemany(sink.inserts[table], rows)
+            if sub.should_crash():
+                # The process dies here: the open batch and everything still queued is gone.
+                db.execute("ROLLBACK")
+                sub.crash(client)
+                return
+            db.execute("COMMIT")
+            # Durable now. Parsers may have reordered messages, so acknowledge only the
+            # contiguous prefix of arrival order; the rest waits for a later batch.
+            for s, _, pid, _ in batch:
+                heapq.heappush(pending_acks, (s, pid))
+            acks = []
+            while pending_acks and pending_acks[0][0] == next_ack:
+                _, pid = heapq.heappop(pending_acks)
+                next_ack += 1
+                if pid is not None:
+                    acks.append(pid)
+            client.pubacks(acks)
+            sub.committed_rows([row for _, _, _, row in batch])
+
+    for _ in range(args.parsers):
+        threading.Thread(target=parser, daemon=True).start()
+    threading.Thread(target=writer, daemon=True).start()
+    threading.Thread(target=sub.read_loop, args=(client, on_message), daemon=True).start()
+
+
+def run_pipeline(args, name: str) -> dict:
+    with tempfile.TemporaryDirectory(prefix="synclite-mqtt-ingest-") as tmp:
+        sink = Sink(os.path.join(tmp, "qreader.db"))
+        sub = Subscriber(args, sink, run_inline if name == "inline" else run_staged)
+
+        start_queue = MP.Queue()
+        pubs = MP.Process(target=publishers_main, args=(args, start_queue))
+        pubs.start()
+        start_ns = start_queue.get()
+        finished = sub.done.wait(args.timeout)
+        pubs.join(timeout=5)
+        sub.client.close()
+        if not finished:
+            print(f"WARN: {name}: only {len(sub.seen)} of {args.messages} messages committed "
+                  f"within {args.timeout:.0f}s", file=sys.stderr)
+        wall = max(1, sub.last_commit_ns - start_ns) / 1e9
+        lat = sorted(sub.latencies) or [0]
+        result = {
+            "pipeline": name,
+            "messages": len(sub.seen),
+            "msgs_per_sec": len(sub.seen) / wall,
+            "p50_ms": lat[len(lat) // 2] / 1e6,
+            "p99_ms": lat[min(len(lat) - 1, int(len(lat) * 0.99))] / 1e6,
+            "callback_busy": sub.callback_busy / wall,
+            "mean_batch": sub.committed / sub.batches if sub.batches else 0.0,
+            "lost": args.messages - len(sub.seen),
+            "dups": sub.duplicates,
+        }
+        sink.close()
+        return result
+
+
+def main() -> int:
+    ap = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    ap.add_argument("--broker", help="host:port of an MQTT broker (default: embedded stand-in)")
+    ap.add_argument("--username")
+    ap.add_argument("--password")
+    ap.add_argument("--pipeline", choices=["inline", "staged", "both"], default="both")
+    ap.add_argument("--messages", type=int, default=200_000)
+    ap.add_argument("--sensors", type=int, default=10_000)
+    ap.add_argument("--publishers", type=int, default=8)
+    ap.add_argument("--rate", type=float, default=0.0, help="total publish rate in msgs/s; 0 = as fast as possible")
+    ap.add_argument("--qos", type=int, choices=[0, 1], default=1)
+    ap.add_argument("--queue-size", type=int, default=10_000)
+    ap.add_argument("--parsers", type=int, default=4)
+    ap.add_argument("--batch-size", type=int, default=5_000)
+    ap.add_argument("--linger-ms", type=float, default=50.0)
+    ap.add_argument("--timeout", type=float, default=600.0)
+    ap.add_argument("--crash-after", type=int, default=0,
+                    help="drop the subscriber before its next commit once this many messages arrived, then reconnect")
+    args = ap.parse_args()
+
+    broker = None
+    if args.broker:
+        host, _, port = args.broker.rpartition(":")
+        args.host, args.port = host or "127.0.0.1", int(port)
+    else:
+        port_queue = MP.Queue()
+        broker = MP.Process(target=broker_main, args=(port_queue,), daemon=True)
+        broker.start()
+        args.host, args.port = "127.0.0.1", port_queue.get(timeout=10)
+
+    try:
+        pipelines = ["inline", "staged"] if args.pipeline == "both" else [args.pipeline]
+        print(f"{'pipeline':<10}{'messages':>10}{'msgs/s':>12}{'p50 ms':>10}{'p99 ms':>10}"
+              f"{'callback busy':>15}{'mean batch':>12}{'lost':>8}{'dups':>8}")
+        for name in pipelines:
+            r = run_pipeline(args, name)
+            print(f"{r['pipeline']:<10}{r['messages']:>10}{r['msgs_per_sec']:>12,.0f}{r['p50_ms']:>10.1f}"
+                  f"{r['p99_ms']:>10.1f}{r['callback_busy']:>15.0%}{r['mean_batch']:>12.1f}"
+                  f"{r['lost']:>8}{r['dups']:>8}")
+    finally:
+        if broker is not None:
+            broker.terminate()
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,204 @@
+"""Compare Consolidator-style startup from per-segment metadata files with a single catalog.
+
+Usage:
+    bench_segment_catalog.py [--devices N] [--segments-per-device S] [--stage D]
+
+A synthetic stage with ``N x S`` segments and one ``.synclite.metadata`` SQLite
+file per segment is created (see ``synthetic_stage.py``), or an existing one is
+read with ``--stage``. Startup state - per device, the highest APPLIED segment,
+its last ``commit_id`` (the applied watermark) and the segments still waiting
+to be applied - is then recovered three ways:
+
+- ``scan``       walk every device directory, open every metadata file and
+                 read the watermark from the last applied segment,
+- ``catalog``    read one append-only catalog file that holds every segment
+                 arrival and status transition (memory-mapped),
+- ``compacted``  read the same catalog after compaction, which keeps one
+                 watermark record per device plus the pending segments.
+
+Catalog record layout (little endian):
+
+    'D' u32 device_id u16 name_len name       -- device definition
+    'S' u32 device_id u64 seq u8 status i64 commit_id  -- segment status
+
+Not measured: the ``sync_status`` / ``sync_statistics`` / ``sync_latency``
+lookups. They read the Consolidator's per-device files under its work
+directory, which a synthetic stage does not have, so only startup recovery
+is compared here.
+"""
+import argparse
+import mmap
+import os
+import sqlite3
+import struct
+import tempfile
+import time
+from pathlib import Path
+
+from synthetic_stage import device_dirs, generate
+
+STATUS = {"NEW": 0, "READY_TO_APPLY": 1, "APPLIED": 2}
+SEG = struct.Struct("<IQBq")
+DEV = struct.Struct("<IH")
+
+
+class DeviceState:
+    __slots__ = ("applied_seq", "applied_commit_id", "pending", "scanned")
+
+    def __init__(self):
+        self.applied_seq = -1
+        self.applied_commit_id = 0
+        self.pending = set()
+        self.scanned = []  # (seq, status) of each metadata file read by scan()
+
+    def apply(self, seq: int, status: int, commit_id: int) -> None:
+        if status == STATUS["APPLIED"]:
+            self.pending.discard(seq)
+            if seq > self.applied_seq:
+                self.applied_seq = seq
+                self.applied_commit_id = commit_id
+        else:
+            self.pending.add(seq)
+
+
+def scan(stage: Path) -> dict:
+    state = {}
+    for d in device_dirs(stage):
+        dev = state.setdefault(d.name, DeviceState())
+        for meta in d.glob("*.synclite.metadata"):
+            conn = sqlite3.connect(str(meta))
+            try:
+                kv = dict(conn.execute("SELECT key, value FROM metadata"))
+            finally:
+                conn.close()
+            seq, status = int(kv["log-segment-sequence-number"]), STATUS[kv["status"]]
+            dev.scanned.append((seq, status))
+            dev.apply(seq, status, 0)
+        if dev.applied_seq >= 0:
+            dev.applied_commit_id = last_commit_id(d / f"{dev.applied_seq}.sqllog")
+    return state
+
+
+def last_commit_id(segment: Path) -> int:
+    conn = None
+    try:
+        conn = sqlite3.connect(f"file:{segment}?mode=ro", uri=True)
+        return conn.execute("SELECT coalesce(max(commit_id), 0) FROM commandlog").fetchone()[0]
+    except sqlite3.Error:
+        return 0  # gone (already cleaned up) or not a readable commandlog yet
+    finally:
+        if conn is not None:
+            conn.close()
+
+
+class CatalogWriter:
+    def __init__(self, path: Path):
+        self.out = open(path, "wb")
+        self.ids = {}
+
+    def device(self, device: str) -> int:
+        dev_id = self.ids.get(device)
+        if dev_id is None:
+            dev_id = self.ids[device] = len(self.ids)
+            name = device.encode("utf-8")
+            self.out.write(b"D" + DEV.pack(dev_id, len(name)) + name)
+        return dev_id
+
+    def segment(self, device: str, seq: int, status: int, commit_id: int = 0) -> None:
+        self.out.write(b"S" + SEG.pack(self.device(device), seq, status, commit_id))
+
+    def close(self) -> None:
+        self.out.flush()
+        os.fsync(self.out.fileno())
+        self.out.close()
+
+
+def load_catalog(path: Path) -> dict:
+    names = {}
+    state = {}
+    if path.stat().st_size == 0:
+        return state  # mmap cannot map an empty file
+    with open(path, "rb") as f, mmap.mmap(f.fileno(), 0, access=mmap.ACCESS_READ) as buf:
+        pos = 0
+        end = len(buf)
+        while pos < end:
+            kind = buf[pos]
+            pos += 1
+            if kind == ord("D"):
+                dev_id, n = DEV.unpack_from(buf, pos)
+                pos += DEV.size
+                names[dev_id] = buf[pos:pos + n].decode("utf-8")
+                state[names[dev_id]] = DeviceState()
+                pos += n
+            else:
+                dev_id, seq, status, commit_id = SEG.unpack_from(buf, pos)
+                pos += SEG.size
+                state[names[dev_id]].apply(seq, status, commit_id)
+    return state
+
+
+def write_catalog(path: Path, state: dict, compact: bool) -> None:
+    """Write scanned ``state`` as catalog records.
+
+    The full catalog holds what the metadata files show: an arrival record for
+    every scanned segment, followed by an APPLIED transition for those already
+    applied. ``compact`` keeps only the watermark and the pending segments.
+    """
+    w = CatalogWriter(path)
+    for device, dev in state.items():
+        w.device(device)
+        if compact:
+            if dev.applied_seq >= 0:
+                w.segment(device, dev.applied_seq, STATUS["APPLIED"], dev.applied_commit_id)
+            for seq in sorted(dev.pending):
+                w.segment(device, seq, STATUS["READY_TO_APPLY"])
+            continue
+        for seq, status in sorted(dev.scanned):
+            if status == STATUS["APPLIED"]:
+                w.segment(device, seq, STATUS["READY_TO_APPLY"])
+                w.segment(device, seq, status, dev.applied_commit_id if seq == dev.applied_seq else 0)
+            else:
+                w.segment(device, seq, status)
+    w.close()
+
+
+def timed(label: str, fn, path_size=None):
+    start = time.perf_counter()
+    result = fn()
+    elapsed = time.perf_counter() - start
+    pending = sum(len(d.pending) for d in result.values())
+    watermarks = sum(1 for d in result.values() if d.applied_commit_id)
+    size = f" bytes={os.path.getsize(path_size):,}" if path_size else ""
+    print(f"{label:<10} devices={len(result)} pending={pending} watermarks={watermarks} "
+          f"startup_s={elapsed:.3f}{size}")
+    return result
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("--devices", type=int, default=1000)
+    parser.add_argument("--segments-per-device", type=int, default=100)
+    parser.add_argument("--stage", help="existing stage directory to read instead of a synthetic one")
+    args = parser.parse_args()
+
+    with tempfile.TemporaryDirectory(prefix="synclite_catalog_bench_") as tmp:
+        if args.stage:
+            stage = Path(args.stage)
+        else:
+            stage = Path(tmp) / "stage"
+            print(f"Generating {args.devices * args.segments_per_device:,} segments ...")
+            generate(stage, args.devices, args.segments_per_device, metadata=True)
+
+        state = timed("scan", lambda: scan(stage))
+
+        catalog = Path(tmp) / "segments.catalog"
+        write_catalog(catalog, state, compact=False)
+        timed("catalog", lambda: load_catalog(catalog), catalog)
+
+        compacted = Path(tmp) / "segments.catalog.compacted"
+        write_catalog(compacted, state, compact=True)
+        timed("compacted", lambda: load_catalog(compacted), compacted)
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,282 @@
+"""Measure how much a block-encoded, compressed form of a .sqllog segment would save.
+
+Usage:
+    bench_segment_encoding.py <segment.sqllog> [--block-rows N]
+    bench_segment_encoding.py --synthetic ROWS [--block-rows N]
+
+The segment's ``commandlog`` rows are re-encoded the way an opt-in shipping
+format could store them:
+
+- repeated ``sql`` text is interned into a per-segment dictionary,
+- ``change_sequence_number`` and ``commit_id`` are delta-encoded as varints,
+- rows are grouped into blocks of ``--block-rows`` and each block is compressed.
+  Deltas restart at every block, so blocks decode independently.
+
+Before timing anything, the encoded form is decoded once and compared with the
+rows read from SQLite; the script exits with status 1 if they differ.
+
+For every available codec (zlib and lzma always; zstd / lz4 when the
+``zstandard`` / ``lz4`` packages are installed) the script prints the encoded
+size next to the plain SQLite file size, and the decode throughput next to a
+plain ``SELECT * FROM commandlog`` scan of the same segment. The decoder is
+pure Python, so compare the two throughput numbers with each other rather than
+with what the Java Consolidator would reach.
+"""
+import argparse
+import lzma
+import os
+import sqlite3
+import struct
+import sys
+import tempfile
+import time
+import zlib
+from pathlib import Path
+
+NULL, INT, REAL, TEXT, BLOB = range(5)
+
+
+def codecs():
+    found = {
+        "zlib": (lambda b: zlib.compress(b, 6), zlib.decompress),
+        "lzma": (lambda b: lzma.compress(b, preset=1), lzma.decompress),
+    }
+    try:
+        import zstandard
+
+        found["zstd"] = (zstandard.ZstdCompressor(level=3).compress, zstandard.ZstdDecompressor().decompress)
+    except ImportError:
+        pass
+    try:
+        import lz4.frame
+
+        found["lz4"] = (lz4.frame.compress, lz4.frame.decompress)
+    except ImportError:
+        pass
+    return found
+
+
+def put_varint(out: bytearray, v: int) -> None:
+    v = (v << 1) ^ (v >> 63)  # zigzag so negative deltas stay short
+    while v >= 0x80:
+        out.append((v & 0x7F) | 0x80)
+        v >>= 7
+    out.append(v)
+
+
+def get_varint(buf: bytes, pos: int):
+    shift = result = 0
+    while True:
+        b = buf[pos]
+        pos += 1
+        result |= (b & 0x7F) << shift
+        if b < 0x80:
+            return (result >> 1) ^ -(result & 1), pos
+        shift += 7
+
+
+def put_value(out: bytearray, v) -> None:
+    if v is None:
+        out.append(NULL)
+    elif isinstance(v, int):
+        out.append(INT)
+        put_varint(out, v)
+    elif isinstance(v, float):
+        out.append(REAL)
+        out += struct.pack("<d", v)
+    else:
+        raw = v.encode("utf-8") if isinstance(v, str) else bytes(v)
+        out.append(TEXT if isinstance(v, str) else BLOB)
+        put_varint(out, len(raw))
+        out += raw
+
+
+def get_value(buf: bytes, pos: int):
+    tag = buf[pos]
+    pos += 1
+    if tag == NULL:
+        return None, pos
+    if tag == INT:
+        return get_varint(buf, pos)
+    if tag == REAL:
+        return struct.unpack_from("<d", buf, pos)[0], pos + 8
+    n, pos = get_varint(buf, pos)
+    raw = buf[pos:pos + n]
+    return (raw.decode("utf-8") if tag == TEXT else raw), pos + n
+
+
+def read_rows(path: Path):
+    conn = sqlite3.connect(str(path))
+    try:
+        cols = [r[1] for r in conn.execute("PRAGMA table_info(commandlog)")]
+        arg_cols = [c for c in cols if c.startswith("arg") and c != "argcnt"]
+        select = ", ".join(["change_sequence_number", "commit_id", "sql", "argcnt"] + arg_cols)
+        rows = conn.execute(f"SELECT {select} FROM commandlog ORDER BY change_sequence_number").fetchall()
+    finally:
+        conn.close()
+    return rows
+
+
+def encode(rows, block_rows: int):
+    """Return (header bytes, list of uncompressed block bytes).
+
+    Every block starts its deltas from zero, so any block can be decoded on its
+    own with just the header (SQL dictionary and arg column count).
+    """
+    dictionary = {}
+    blocks = []
+    arg_cols = len(rows[0]) - 4 if rows else 0
+    for start in range(0, len(rows), block_rows):
+        out = bytearray()
+        prev_csn = prev_commit = 0
+        for csn, commit_id, sql, argcnt, *args in rows[start:start + block_rows]:
+            put_varint(out, csn - prev_csn)
+            prev_csn = csn
+            if commit_id is None:
+                put_varint(out, 1)  # odd marks NULL, even carries the delta
+            else:
+                put_varint(out, (commit_id - prev_commit) << 1)
+                prev_commit = commit_id
+            sql_id = -1 if sql is None else dictionary.setdefault(sql, len(dictionary))
+            put_varint(out, sql_id)
+            put_value(out, argcnt)
+            # Store args up to the last non-NULL one rather than trusting
+            # argcnt, which can be NULL or smaller than the filled columns.
+            stored = len(args)
+            while stored and args[stored - 1] is None:
+                stored -= 1
+            put_varint(out, stored)
+            for a in args[:stored]:
+                put_value(out, a)
+        blocks.append(bytes(out))
+
+    header = bytearray()
+    put_varint(header, arg_cols)
+    put_varint(header, len(dictionary))
+    for sql in dictionary:
+        put_value(header, sql)
+    return bytes(header), blocks
+
+
+def decode(header: bytes, blocks):
+    """Return the rows in the same shape as read_rows()."""
+    arg_cols, pos = get_varint(header, 0)
+    count, pos = get_varint(header, pos)
+    sqls = []
+    for _ in range(count):
+        sql, pos = get_value(header, pos)
+        sqls.append(sql)
+
+    rows = []
+    for block in blocks:
+        pos = 0
+        csn = commit_id = 0
+        while pos < len(block):
+            d, pos = get_varint(block, pos)
+            csn += d
+            d, pos = get_varint(block, pos)
+            if d & 1:
+                row_commit = None
+            else:
+                commit_id += d >> 1
+                row_commit = commit_id
+            sql_id, pos = get_varint(block, pos)
+            argcnt, pos = get_value(block, pos)
+            stored, pos = get_varint(block, pos)
+            args = []
+            for _ in range(stored):
+                a, pos = get_value(block, pos)
+                args.append(a)
+            args += [None] * (arg_cols - stored)
+            rows.append((csn, row_commit, sqls[sql_id] if sql_id >= 0 else None, argcnt, *args))
+    return rows
+
+
+def synthesize(path: Path, rows: int) -> None:
+    conn = sqlite3.connect(str(path))
+    args = ", ".join(f"arg{i} BLOB" for i in range(1, 17))
+    conn.execute(
+        "CREATE TABLE commandlog(change_sequence_number INTEGER PRIMARY KEY, commit_id INTEGER, "
+        f"sql TEXT, argcnt INTEGER, {args})"
+    )
+    commit_id = int(time.time() * 1000)
+    sqls = [
+        "INSERT INTO users(id, name, score) VALUES(?, ?, ?)",
+        "UPDATE users SET score = ? WHERE id = ?",
+        "INSERT INTO events(ts, type, payload) VALUES(?, ?, ?)",
+    ]
+    batch = []
+    for i in range(1, rows + 1):
+        if i % 50 == 0:
+            commit_id += 1
+        k = i % len(sqls)
+        if k == 0:
+            batch.append((i, commit_id, sqls[0], 3, i, f"user-{i}", i % 1000))
+        elif k == 1:
+            batch.append((i, commit_id, sqls[1], 2, i % 1000, i - 1, None))
+        else:
+            batch.append((i, commit_id, sqls[2], 3, commit_id, "VIEW", f'{{"page":"/p/{i % 97}"}}'))
+    conn.executemany(
+        "INSERT INTO commandlog(change_sequence_number, commit_id, sql, argcnt, arg1, arg2, arg3) "
+        "VALUES(?, ?, ?, ?, ?, ?, ?)",
+        batch,
+    )
+    conn.commit()
+    conn.close()
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("segment", nargs="?")
+    parser.add_argument("--synthetic", type=int, metavar="ROWS")
+    parser.add_argument("--block-rows", type=int, default=4096)
+    args = parser.parse_args()
+
+    tmp = None
+    if args.synthetic:
+        tmp = tempfile.TemporaryDirectory(prefix="synclite_seg_bench_")
+        path = Path(tmp.name) / "0.sqllog"
+        synthesize(path, args.synthetic)
+    elif args.segment:
+        path = Path(args.segment)
+        if not path.exists():
+            print("File not found")
+            sys.exit(1)
+    else:
+        parser.print_usage()
+        sys.exit(2)
+
+    try:
+        start = time.perf_counter()
+        rows = read_rows(path)
+        scan_s = time.perf_counter() - start
+        plain = os.path.getsize(path)
+        print(f"Segment: {path}")
+        print(f"rows={len(rows)} plain_bytes={plain:,} sqlite_scan_rows_per_s={len(rows) / scan_s:,.0f}")
+        if not rows:
+            return
+
+        dict_bytes, blocks = encode(rows, args.block_rows)
+        if decode(dict_bytes, blocks) != rows:
+            print("Round trip failed: decoded rows differ from the segment")
+            sys.exit(1)
+        raw = len(dict_bytes) + sum(len(b) for b in blocks)
+        print(f"{'encoded':<8} bytes={raw:,} ratio={plain / raw:.2f}x")
+
+        for name, (compress, decompress) in codecs().items():
+            packed = [compress(b) for b in blocks]
+            size = len(dict_bytes) + sum(len(b) for b in packed)
+            start = time.perf_counter()
+            decoded = len(decode(dict_bytes, [decompress(b) for b in packed]))
+            decode_s = time.perf_counter() - start
+            print(
+                f"{name:<8} bytes={size:,} ratio={plain / size:.2f}x "
+                f"decode_rows_per_s={decoded / decode_s:,.0f}"
+            )
+    finally:
+        if tmp:
+            tmp.cleanup()
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,236 @@
+"""Compare the per-commit txn-file layout against a grouped (multi-commit) layout.
+
+Multi-writer devices stage one ``<segment>.sqllog.<commit_id>.txn`` SQLite file
+per committed transaction and append a ``REPLAY_TXN`` control row to the master
+``<segment>.sqllog``. This script measures what that costs on the local disk and
+what grouping several commits into one shared txn file would save.
+
+Usage:
+    bench_txn_file_layout.py scan <device_stage_dir>
+    bench_txn_file_layout.py bench [--commits N] [--rows-per-commit R] [--commit-rate C]
+                                   [--group-commits G] [--group-bytes B] [--group-window-ms W]
+                                   [--dir D]
+
+``scan`` reports how many txn files each segment of an existing device holds.
+``bench`` writes the same synthetic commits twice - once per-commit, once grouped
+(a group closes after G commits, B bytes of SQL + args, or W ms after its first
+commit arrived, whichever comes first) - and prints commits/sec, files/sec and
+p50 / p99 commit-to-durable latency for both: from the moment a commit arrives
+until its txn file is synced and its ``REPLAY_TXN`` row is in the master
+segment. Commits arrive back to back by default; ``--commit-rate`` spaces them
+out on a fixed schedule, which is where the window shows up as added latency.
+
+Every commit keeps its own ``commit_id`` inside the grouped file, so replay
+order is unchanged. The group's file is named after its last ``commit_id``
+and its ``REPLAY_TXN`` row carries that same id, so a consumer resolves the
+file from the control row exactly as for a per-commit file.
+"""
+import argparse
+import re
+import shutil
+import sqlite3
+import sys
+import tempfile
+import time
+from collections import defaultdict
+from pathlib import Path
+
+TXN_FILE = re.compile(r"^(\d+)\.sqllog\.(\d+)\.txn$")
+
+COMMANDLOG_DDL = (
+    "CREATE TABLE IF NOT EXISTS commandlog("
+    "change_sequence_number INTEGER PRIMARY KEY, commit_id INTEGER, sql TEXT, argcnt INTEGER, "
+    "arg1 BLOB, arg2 BLOB, arg3 BLOB)"
+)
+
+INSERT_SQL = "INSERT INTO users(id, name, score) VALUES(?, ?, ?)"
+
+
+def scan(stage_dir: Path) -> None:
+    if not stage_dir.is_dir():
+        print(f"Not a directory: {stage_dir}")
+        sys.exit(1)
+
+    txn_files = defaultdict(int)
+    for f in stage_dir.iterdir():
+        m = TXN_FILE.match(f.name)
+        if m:
+            txn_files[int(m.group(1))] += 1
+
+    segments = sorted(int(f.name.split(".")[0]) for f in stage_dir.glob("*.sqllog"))
+    print(f"Device stage dir: {stage_dir}")
+    print(f"segments={len(segments)} txn_files={sum(txn_files.values())}")
+    for seg in segments:
+        print(f"  {seg}.sqllog: txn_files={txn_files.get(seg, 0)}")
+
+
+def open_log(path: Path) -> sqlite3.Connection:
+    conn = sqlite3.connect(str(path), isolation_level=None)
+    conn.execute("PRAGMA synchronous=FULL")
+    conn.execute(COMMANDLOG_DDL)
+    return conn
+
+
+def make_commits(commits: int, rows_per_commit: int, rate: float):
+    """(commit_id, rows, arrival); arrival is on a fixed schedule, or whenever the writer asks at rate 0."""
+    commit_id = int(time.time() * 1000)
+    start = time.perf_counter()
+    for c in range(commits):
+        rows = [(c * rows_per_commit + r, f"name-{c}-{r}", r) for r in range(rows_per_commit)]
+        yield commit_id + c, rows, start + c / rate if rate else time.perf_counter()
+
+
+def wait_until(t: float) -> None:
+    delay = t - time.perf_counter()
+    if delay > 0:
+        time.sleep(delay)
+
+
+def commit_bytes(rows) -> int:
+    return sum(len(INSERT_SQL) + len(str(a)) + len(b) + 8 for a, b, _ in rows)
+
+
+def write_rows(conn: sqlite3.Connection, commit_id: int, rows, csn: int) -> int:
+    for r in rows:
+        conn.execute(
+            "INSERT INTO commandlog VALUES(?, ?, ?, 3, ?, ?, ?)",
+            (csn, commit_id, INSERT_SQL, r[0], r[1], r[2]),
+        )
+        csn += 1
+    return csn
+
+
+def replay_txn(master: sqlite3.Connection, csn: int, commit_id: int, file_name: str) -> None:
+    master.execute(
+        "INSERT INTO commandlog VALUES(?, ?, 'REPLAY_TXN', 2, ?, ?, NULL)",
+        (csn, commit_id, commit_id, file_name),
+    )
+
+
+def bench_per_commit(work: Path, commits) -> tuple:
+    master = open_log(work / "0.sqllog")
+    files = 0
+    latencies = []
+    for seq, (commit_id, rows, arrival) in enumerate(commits):
+        wait_until(arrival)
+        name = f"0.sqllog.{commit_id}.txn"
+        txn = open_log(work / name)
+        txn.execute("BEGIN")
+        write_rows(txn, commit_id, rows, 1)
+        txn.execute("COMMIT")
+        txn.close()
+        files += 1
+        replay_txn(master, seq + 1, commit_id, name)
+        latencies.append(time.perf_counter() - arrival)
+    master.close()
+    return files, latencies
+
+
+def bench_grouped(work: Path, commits, group_commits: int, group_bytes: int, group_window: float) -> tuple:
+    master = open_log(work / "0.sqllog")
+    files = 0
+    seq = 0
+    group = []
+    size = 0
+    latencies = []
+
+    def flush():
+        nonlocal files, seq, group, size
+        if not group:
+            return
+        # One commit_id names the file and goes into its control row: the last one,
+        # so a consumer knows every commit up to it is inside this file.
+        group_commit_id = group[-1][0]
+        name = f"0.sqllog.{group_commit_id}.txn"
+        txn = open_log(work / name)
+        txn.execute("BEGIN")
+        csn = 1
+        for commit_id, rows, _ in group:
+            csn = write_rows(txn, commit_id, rows, csn)
+        txn.execute("COMMIT")
+        txn.close()
+        files += 1
+        seq += 1
+        replay_txn(master, seq, group_commit_id, name)
+        durable = time.perf_counter()
+        latencies.extend(durable - arrival for _, _, arrival in group)
+        group = []
+        size = 0
+
+    for commit_id, rows, arrival in commits:
+        # The open group's window may run out before this commit arrives.
+        if group and group_window and arrival > group[0][2] + group_window:
+            wait_until(group[0][2] + group_window)
+            flush()
+        wait_until(arrival)
+        group.append((commit_id, rows, arrival))
+        size += commit_bytes(rows)
+        if len(group) >= group_commits or size >= group_bytes:
+            flush()
+    flush()
+    master.close()
+    return files, latencies
+
+
+def percentile(values, pct: float) -> float:
+    values = sorted(values) or [0.0]
+    return values[min(len(values) - 1, int(len(values) * pct))]
+
+
+def report(label: str, commits: int, files: int, elapsed: float, latencies) -> None:
+    print(
+        f"{label:<12} commits={commits} files={files} elapsed_s={elapsed:.3f} "
+        f"commits_per_s={commits / elapsed:,.0f} files_per_s={files / elapsed:,.0f} "
+        f"durable_p50_ms={percentile(latencies, 0.50) * 1000:.2f} "
+        f"durable_p99_ms={percentile(latencies, 0.99) * 1000:.2f}"
+    )
+
+
+def bench(args) -> None:
+    base = Path(args.dir) if args.dir else Path(tempfile.mkdtemp(prefix="synclite_txn_bench_"))
+    try:
+        for label in ("per-commit", "grouped"):
+            work = base / label
+            if work.exists():
+                shutil.rmtree(work)
+            work.mkdir(parents=True)
+            commits = make_commits(args.commits, args.rows_per_commit, args.commit_rate)
+            start = time.perf_counter()
+            if label == "per-commit":
+                files, latencies = bench_per_commit(work, commits)
+            else:
+                files, latencies = bench_grouped(work, commits, args.group_commits, args.group_bytes,
+                                                 args.group_window_ms / 1000)
+            report(label, args.commits, files, time.perf_counter() - start, latencies)
+    finally:
+        if not args.dir:
+            shutil.rmtree(base, ignore_errors=True)
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    sub = parser.add_subparsers(dest="cmd", required=True)
+
+    p_scan = sub.add_parser("scan")
+    p_scan.add_argument("stage_dir")
+
+    p_bench = sub.add_parser("bench")
+    p_bench.add_argument("--commits", type=int, default=2000)
+    p_bench.add_argument("--rows-per-commit", type=int, default=3)
+    p_bench.add_argument("--group-commits", type=int, default=64)
+    p_bench.add_argument("--group-bytes", type=int, default=1 << 20)
+    p_bench.add_argument("--group-window-ms", type=float, default=10.0,
+                         help="close a group this long after its first commit arrived; 0 = no time limit")
+    p_bench.add_argument("--commit-rate", type=float, default=0.0,
+                         help="commits/s arriving on a fixed schedule; 0 = back to back")
+    p_bench.add_argument("--dir", help="keep the generated files under this directory")
+
+    args = parser.parse_args()
+    if args.cmd == "scan":
+        scan(Path(args.stage_dir))
+    else:
+        bench(args)
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,320 @@
+"""Load-test SyncLite DB SELECT throughput and server heap over the HTTP/JSON API.
+
+Usage:
+    loadtest_synclite_db.py [--url http://localhost:5555/synclite] [--rows 1000000]
+                            [--page-sizes 100,1000,10000] [--modes json-objects,json-db]
+                            [--clients 1,4] [--server-pid <pid>] [--json results.json]
+    loadtest_synclite_db.py --skip-seed ...        # reuse the table from a previous run
+
+Seeds ``loadtest(id, name, score, payload)`` in ``--db-name`` with batched
+``arguments`` inserts, then, for every (mode, page size, client count), has each
+client scan the whole table through ``resultset-pagination-size`` /
+``"request-type": "next"`` round-trips and reports:
+
+- rows/s over all clients, round-trips, response bytes per row,
+- client-side decode share of the wall time,
+- server heap used (peak / mean), sampled with ``jstat -gc`` when ``--server-pid``
+  is the SyncLite DB JVM, falling back to ``VmRSS`` when ``jstat`` cannot attach.
+
+Modes are the response formats the server answers today: ``json-objects`` (the
+default ``{name: value}`` rows) and ``json-db`` (``"resultset-data-format": "DB"``
+value arrays). A new response format is measured by adding a reader to ``MODES``;
+the results JSON is keyed by mode name so runs stay comparable across versions.
+
+Each client keeps one HTTP/1.1 connection open, so the numbers are JSON encoding
+and round-trip cost, not TCP setup. The token in ``SYNCLITE_DB_AUTH_TOKEN`` (or
+``--token``) is sent as ``X-SyncLite-Token``.
+"""
+import argparse
+import http.client
+import json
+import os
+import shutil
+import socket
+import statistics
+import subprocess
+import sys
+import threading
+import time
+from concurrent.futures import ThreadPoolExecutor
+from urllib.parse import urlsplit
+
+TABLE = "loadtest"
+SELECT_SQL = f"SELECT id, name, score, payload FROM {TABLE} ORDER BY id"
+
+
+class Client:
+    """One keep-alive connection to the server; not thread-safe, one per worker."""
+
+    def __init__(self, url: str, token: str | None, timeout: float):
+        parts = urlsplit(url)
+        self.host = parts.hostname or "localhost"
+        self.port = parts.port or 80
+        self.path = parts.path or "/synclite"
+        self.timeout = timeout
+        self.headers = {"Content-Type": "application/json"}
+        if token:
+            self.headers["X-SyncLite-Token"] = token
+        self.conn = None
+        self.bytes_in = 0
+        self.round_trips = 0
+
+    def raw(self, payload: dict) -> bytes:
+        body = json.dumps(payload, separators=(",", ":")).encode("utf-8")
+        for attempt in (0, 1):
+            if self.conn is None:
+                self.conn = http.client.HTTPConnection(self.host, self.port, timeout=self.timeout)
+                self.conn.connect()
+                self.conn.sock.setsockopt(socket.IPPROTO_TCP, socket.TCP_NODELAY, 1)
+            try:
+                self.conn.request("POST", self.path, body=body, headers=self.headers)
+                resp = self.conn.getresponse()
+                data = resp.read()
+                break
+            except (http.client.RemoteDisconnected, ConnectionResetError, BrokenPipeError):
+                # The server may drop an idle keep-alive connection; retry once on a fresh one.
+                self.close()
+                if attempt:
+                    raise
+        if resp.status != 200:
+            raise RuntimeError(f"HTTP {resp.status} from {self.path}: {data[:200]!r}")
+        self.bytes_in += len(data)
+        self.round_trips += 1
+        return data
+
+    def call(self, payload: dict) -> dict:
+        reply = json.loads(self.raw(payload))
+        if not reply.get("result", False):
+            raise RuntimeError(f"{payload.get('sql', payload.get('request-type'))}: {reply.get('message')}")
+        return reply
+
+    def close(self) -> None:
+        if self.conn is not None:
+            self.conn.close()
+            self.conn = None
+
+
+def seed(client: Client, args) -> None:
+    init = {"db-type": args.db_type, "db-name": args.db_name, "sql": "initialize"}
+    if args.stage_dir:
+        init["synclite-logger-options"] = {
+            "local-data-stage-directory": args.stage_dir,
+            "device-stage-type": "FS",
+        }
+    client.call(init)
+    client.call({"db-name": args.db_name, "sql": f"DROP TABLE IF EXISTS {TABLE}"})
+    client.call({"db-name": args.db_name,
+                 "sql": f"CREATE TABLE {TABLE}(id INT, name TEXT, score INT, payload TEXT)"})
+    payload = "x" * args.payload_bytes
+    start = time.perf_counter()
+    for lo in range(0, args.rows, args.seed_batch):
+        hi = min(lo + args.seed_batch, args.rows)
+        client.call({
+            "db-name": args.db_name,
+            "sql": f"INSERT INTO {TABLE} VALUES(?, ?, ?, ?)",
+            "arguments": [[i, f"name-{i}", i % 1000, payload] for i in range(lo, hi)],
+        })
+    elapsed = time.perf_counter() - start
+    print(f"seeded {args.rows} rows in {elapsed:.1f}s ({args.rows / elapsed:,.0f} rows/s)", file=sys.stderr)
+
+
+def paginated_json(client: Client, db_name: str, page_size: int, data_format: str | None) -> tuple[int, float]:
+    """Full scan through resultset-handle pagination; returns (rows, seconds spent in json.loads)."""
+    request = {
+        "db-name": db_name,
+        "sql": SELECT_SQL,
+        "resultset-pagination-size": page_size,
+    }
+    if data_format:
+        request["resultset-data-format"] = data_format
+    rows = 0
+    decode = 0.0
+    while True:
+        data = client.raw(request)
+        t0 = time.perf_counter()
+        reply = json.loads(data)
+        decode += time.perf_counter() - t0
+        if not reply.get("result", False):
+            raise RuntimeError(reply.get("message"))
+        rows += len(reply.get("resultset", ()))
+        if not reply.get("has-more"):
+            return rows, decode
+        request = {
+            "request-type": "next",
+            "resultset-handle": reply["resultset-handle"],
+            "resultset-pagination-size": page_size,
+        }
+
+
+MODES = {
+    "json-objects": lambda c, db, page: paginated_json(c, db, page, None),
+    "json-db": lambda c, db, page: paginated_json(c, db, page, "DB"),
+}
+
+
+class HeapSampler:
+    """Samples the server's heap usage in KiB until stopped."""
+
+    def __init__(self, pid: int | None, interval_ms: int):
+        self.pid = pid
+        self.interval_ms = interval_ms
+        self.samples = []
+        self.source = None
+        self._stop = threading.Event()
+        self._proc = None
+        self._thread = None
+
+    def start(self) -> None:
+        if self.pid is None:
+            return
+        if shutil.which("jstat"):
+            self.source = "jstat heap used"
+            self._proc = subprocess.Popen(["jstat", "-gc", str(self.pid), str(self.interval_ms)],
+                                          stdout=subprocess.PIPE, stderr=subprocess.DEVNULL, text=True)
+            self._thread = threading.Thread(target=self._read_jstat, daemon=True)
+        else:
+            self.source = "VmRSS"
+            self._thread = threading.Thread(target=self._poll_rss, daemon=True)
+        self._thread.start()
+
+    def _read_jstat(self) -> None:
+        header = None
+        for line in self._proc.stdout:
+            cols = line.split()
+            if not cols:
+                continue
+            if header is None or cols[0] == "S0C":
+                header = cols
+                continue
+            row = dict(zip(header, cols))
+            try:
+                # Used heap = survivors + eden + old; metaspace is off-heap.
+                self.samples.append(sum(float(row[k]) for k in ("S0U", "S1U", "EU", "OU")))
+            except (KeyError, ValueError):
+                pass
+        if not self.samples and not self._stop.is_set():
+            # jstat could not attach (not a JVM, or a different user): measure RSS instead.
+            self.source = "VmRSS"
+            self._poll_rss()
+
+    def _poll_rss(self) -> None:
+        status = f"/proc/{self.pid}/status"
+        while not self._stop.wait(self.interval_ms / 1000):
+            try:
+                with open(status) as f:
+                    for line in f:
+                        if line.startswith("VmRSS:"):
+                            self.samples.append(float(line.split()[1]))
+                            break
+            except OSError:
+                return
+
+    def stop(self) -> dict:
+        self._stop.set()
+        if self._proc is not None:
+            self._proc.terminate()
+            self._proc.wait()
+        if self._thread is not None:
+            self._thread.join(timeout=2)
+        if not self.samples:
+            return {}
+        return {
+            "heap_source": self.source,
+            "heap_peak_mib": max(self.samples) / 1024,
+            "heap_mean_mib": statistics.fmean(self.samples) / 1024,
+        }
+
+
+def run_case(args, mode: str, page_size: int, clients: int) -> dict:
+    reader = MODES[mode]
+    workers = [Client(args.url, args.token, args.timeout) for _ in range(clients)]
+    sampler = HeapSampler(args.server_pid, args.heap_interval_ms)
+    sampler.start()
+    start = time.perf_counter()
+    try:
+        with ThreadPoolExecutor(max_workers=clients) as pool:
+            results = list(pool.map(lambda c: reader(c, args.db_name, page_size), workers))
+    finally:
+        elapsed = time.perf_counter() - start
+        heap = sampler.stop()
+        for c in workers:
+            c.close()
+    rows = sum(r for r, _ in results)
+    decode = sum(d for _, d in results) / clients
+    bytes_in = sum(c.bytes_in for c in workers)
+    if rows != args.rows * clients:
+        print(f"WARN: {mode} page={page_size} clients={clients} read {rows} rows, expected {args.rows * clients}",
+              file=sys.stderr)
+    return {
+        "mode": mode,
+        "page_size": page_size,
+        "clients": clients,
+        "rows": rows,
+        "seconds": elapsed,
+        "rows_per_sec": rows / elapsed if elapsed else 0.0,
+        "round_trips": sum(c.round_trips for c in workers),
+        "bytes_per_row": bytes_in / rows if rows else 0.0,
+        "decode_share": decode / elapsed if elapsed else 0.0,
+        **heap,
+    }
+
+
+def csv_ints(s: str) -> list[int]:
+    return [int(x) for x in s.split(",") if x]
+
+
+def main() -> int:
+    ap = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    ap.add_argument("--url", default="http://localhost:5555/synclite")
+    ap.add_argument("--token", default=os.environ.get("SYNCLITE_DB_AUTH_TOKEN"))
+    ap.add_argument("--db-name", default="loadtest")
+    ap.add_argument("--db-type", default="SQLITE")
+    ap.add_argument("--stage-dir", help="local-data-stage-directory for initialize (server default if omitted)")
+    ap.add_argument("--rows", type=int, default=1_000_000)
+    ap.add_argument("--payload-bytes", type=int, default=64)
+    ap.add_argument("--seed-batch", type=int, default=10_000)
+    ap.add_argument("--skip-seed", action="store_true", help="reuse an existing loadtest table of --rows rows")
+    ap.add_argument("--modes", default=",".join(MODES))
+    ap.add_argument("--page-sizes", type=csv_ints, default=[100, 1000, 10_000])
+    ap.add_argument("--clients", type=csv_ints, default=[1, 4])
+    ap.add_argument("--repeat", type=int, default=3, help="runs per case; the median by rows/s is reported")
+    ap.add_argument("--server-pid", type=int, help="SyncLite DB JVM pid, for heap sampling")
+    ap.add_argument("--heap-interval-ms", type=int, default=250)
+    ap.add_argument("--timeout", type=float, default=300.0)
+    ap.add_argument("--json", help="also write the results to this file")
+    args = ap.parse_args()
+
+    modes = [m for m in args.modes.split(",") if m]
+    unknown = [m for m in modes if m not in MODES]
+    if unknown:
+        ap.error(f"unknown mode(s) {unknown}; known: {', '.join(MODES)}")
+
+    if not args.skip_seed:
+        seeder = Client(args.url, args.token, args.timeout)
+        try:
+            seed(seeder, args)
+        finally:
+            seeder.close()
+
+    results = []
+    print(f"{'mode':<14}{'page':>7}{'clients':>8}{'rows/s':>12}{'trips':>9}{'B/row':>8}"
+          f"{'decode':>8}{'heap peak MiB':>15}")
+    for mode in modes:
+        for page_size in args.page_sizes:
+            for clients in args.clients:
+                runs = [run_case(args, mode, page_size, clients) for _ in range(args.repeat)]
+                r = sorted(runs, key=lambda x: x["rows_per_sec"])[len(runs) // 2]
+                results.append(r)
+                heap = f"{r['heap_peak_mib']:.0f}" if "heap_peak_mib" in r else "-"
+                print(f"{mode:<14}{page_size:>7}{clients:>8}{r['rows_per_sec']:>12,.0f}{r['round_trips']:>9}"
+                      f"{r['bytes_per_row']:>8.1f}{r['decode_share']:>8.0%}{heap:>15}")
+
+    if args.json:
+        with open(args.json, "w") as f:
+            json.dump({"url": args.url, "db_type": args.db_type, "rows": args.rows,
+                       "payload_bytes": args.payload_bytes, "results": results}, f, indent=2)
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,165 @@
+"""Expose SyncLite stage backlog and Consolidator statistics in Prometheus text format.
+
+Usage:
+    synclite_metrics_exporter.py --work-dir <workDir> [--stage-dir <stageDir>] [--port 9464]
+    synclite_metrics_exporter.py --work-dir <workDir> [--stage-dir <stageDir>] --once
+    synclite_metrics_exporter.py --work-dir <workDir> --label-columns device_uuid,table_name
+
+Sources, all read-only:
+
+- ``<stageDir>/synclite_<deviceName>_<uuid>/`` - per device, the number of
+  ``.sqllog`` segments and txn files present in the stage and the age of the
+  oldest one,
+- ``<workDir>/**/synclite_device_statistics.db`` - every numeric column of the
+  ``device_statistics`` and ``table_statistics`` tables the Consolidator keeps.
+  Only the identity columns named by ``--label-columns`` become labels of a
+  row's samples; other text columns (status, error messages, ...) are dropped,
+  since a label whose value changes starts a new time series every time.
+
+``--once`` prints one scrape to stdout; otherwise ``GET /metrics`` serves a fresh
+scrape on every request.
+"""
+import argparse
+import re
+import sqlite3
+import sys
+import time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+from pathlib import Path
+
+STATS_DB = "synclite_device_statistics.db"
+STATS_TABLES = ("device_statistics", "table_statistics")
+TXN_FILE = re.compile(r"^\d+\.sqllog\.\d+\.txn$")
+LABEL_COLUMNS = ("device_uuid", "device_name", "table_name")
+
+
+def metric_name(*parts: str) -> str:
+    return re.sub(r"[^a-zA-Z0-9_]", "_", "_".join(parts)).lower()
+
+
+def label_value(v) -> str:
+    return str(v).replace("\\", "\\\\").replace('"', '\\"').replace("\n", "\\n")
+
+
+def labels(pairs: dict) -> str:
+    return "{" + ",".join(f'{metric_name(k)}="{label_value(v)}"' for k, v in pairs.items()) + "}"
+
+
+class Scrape:
+    def __init__(self):
+        self.samples = {}
+
+    def add(self, name: str, help_text: str, label_pairs: dict, value) -> None:
+        self.samples.setdefault(name, (help_text, []))[1].append((labels(label_pairs), value))
+
+    def render(self) -> str:
+        out = []
+        for name, (help_text, samples) in sorted(self.samples.items()):
+            out.append(f"# HELP {name} {help_text}")
+            out.append(f"# TYPE {name} gauge")
+            out.extend(f"{name}{lbl} {value}" for lbl, value in samples)
+        return "\n".join(out) + "\n"
+
+
+def scrape_stage(stage: Path, scrape: Scrape) -> None:
+    now = time.time()
+    for d in sorted(stage.iterdir()):
+        if not d.is_dir() or not d.name.startswith("synclite_"):
+            continue
+        segments = txns = 0
+        oldest = None
+        for f in d.iterdir():
+            if f.name.endswith(".sqllog"):
+                segments += 1
+            elif TXN_FILE.match(f.name):
+                txns += 1
+            else:
+                continue
+            try:
+                mtime = f.stat().st_mtime
+            except FileNotFoundError:
+                continue  # shipped or consumed since the listing
+            oldest = mtime if oldest is None else min(oldest, mtime)
+        lbl = {"device": d.name}
+        scrape.add("synclite_stage_segments", "Log segments present in the device stage directory", lbl, segments)
+        scrape.add("synclite_stage_txn_files", "Per-commit txn files present in the device stage directory", lbl, txns)
+        scrape.add(
+            "synclite_stage_oldest_segment_age_seconds",
+            "Age of the oldest segment or txn file still in the stage",
+            lbl,
+            f"{now - oldest:.3f}" if oldest is not None else 0,
+        )
+
+
+def scrape_stats_db(db: Path, work_dir: Path, label_columns, scrape: Scrape) -> None:
+    conn = sqlite3.connect(f"file:{db}?mode=ro", uri=True)
+    try:
+        existing = {r[0] for r in conn.execute("SELECT name FROM sqlite_master WHERE type='table'")}
+        for table in STATS_TABLES:
+            if table not in existing:
+                continue
+            cur = conn.execute(f"SELECT * FROM {table}")
+            cols = [c[0] for c in cur.description]
+            for row in cur:
+                lbl = {"device_dir": db.parent.relative_to(work_dir).as_posix()}
+                lbl.update({c: v for c, v in zip(cols, row) if c.lower() in label_columns and v is not None})
+                for c, v in zip(cols, row):
+                    if isinstance(v, (int, float)) and not isinstance(v, bool) and c.lower() not in label_columns:
+                        scrape.add(metric_name("synclite", table, c), f"{table}.{c}", lbl, v)
+    except sqlite3.Error as e:
+        print(f"Skipping {db}: {e}", file=sys.stderr)
+    finally:
+        conn.close()
+
+
+def collect(work_dir: Path, stage_dir, label_columns) -> str:
+    scrape = Scrape()
+    if stage_dir is not None and stage_dir.is_dir():
+        scrape_stage(stage_dir, scrape)
+    for db in sorted(work_dir.rglob(STATS_DB)):
+        scrape_stats_db(db, work_dir, label_columns, scrape)
+    return scrape.render()
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("--work-dir", required=True)
+    parser.add_argument("--stage-dir")
+    parser.add_argument("--port", type=int, default=9464)
+    parser.add_argument("--once", action="store_true")
+    parser.add_argument("--label-columns", default=",".join(LABEL_COLUMNS),
+                        help="comma-separated statistics columns that identify a row and become labels")
+    args = parser.parse_args()
+    label_columns = {c.strip().lower() for c in args.label_columns.split(",") if c.strip()}
+
+    work_dir = Path(args.work_dir)
+    stage_dir = Path(args.stage_dir) if args.stage_dir else None
+    if not work_dir.is_dir():
+        print(f"Not a directory: {work_dir}")
+        sys.exit(1)
+
+    if args.once:
+        sys.stdout.write(collect(work_dir, stage_dir, label_columns))
+        return
+
+    class Handler(BaseHTTPRequestHandler):
+        def do_GET(self):
+            if self.path != "/metrics":
+                self.send_error(404)
+                return
+            body = collect(work_dir, stage_dir, label_columns).encode("utf-8")
+            self.send_response(200)
+            self.send_header("Content-Type", "text/plain; version=0.0.4; charset=utf-8")
+            self.send_header("Content-Length", str(len(body)))
+            self.end_headers()
+            self.wfile.write(body)
+
+        def log_message(self, *args):
+            pass
+
+    print(f"Serving http://0.0.0.0:{args.port}/metrics")
+    ThreadingHTTPServer(("", args.port), Handler).serve_forever()
+
+
+if __name__ == "__main__":
+    main()
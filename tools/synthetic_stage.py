@@ -0,0 +1,108 @@
+"""Generate a synthetic FS stage directory for Consolidator scale benchmarks.
+
+Usage:
+    synthetic_stage.py <stage_dir> [--devices N] [--segments-per-device S] [--metadata]
+                                   [--applied-fraction F]
+
+Creates ``N`` device directories named ``synclite_<deviceName>_<uuid>`` under
+``<stage_dir>``, each holding ``S`` empty ``<n>.sqllog`` segments. With
+``--metadata`` every segment also gets a ``<n>.sqllog.synclite.metadata`` SQLite
+file with a ``metadata(key, value)`` table holding ``uuid``, ``device-name``,
+``log-segment-sequence-number`` and ``status``, and the segment itself is a
+``commandlog`` with one row whose ``commit_id`` (epoch millis, 5 s apart per
+segment) grows with the sequence number, so applied watermarks can be read
+back. The oldest ``F`` share of each device's segments is marked ``APPLIED``,
+the newest ``READY_TO_APPLY``.
+
+Other tools import ``generate`` and ``add_segment`` from here.
+"""
+import argparse
+import sqlite3
+import sys
+import uuid
+from pathlib import Path
+
+FIRST_COMMIT_ID = 1_700_000_000_000
+
+
+def device_dirs(stage: Path):
+    return sorted(d for d in stage.iterdir() if d.is_dir() and d.name.startswith("synclite_"))
+
+
+def write_metadata(path: Path, device_uuid: str, device_name: str, seq: int, status: str) -> None:
+    conn = sqlite3.connect(str(path))
+    try:
+        # Synthetic data only: skip fsync so large stages generate quickly.
+        conn.execute("PRAGMA synchronous=OFF")
+        conn.execute("PRAGMA journal_mode=OFF")
+        conn.execute("CREATE TABLE IF NOT EXISTS metadata(key TEXT PRIMARY KEY, value TEXT)")
+        conn.executemany(
+            "INSERT OR REPLACE INTO metadata VALUES(?, ?)",
+            [
+                ("uuid", device_uuid),
+                ("device-name", device_name),
+                ("log-segment-sequence-number", str(seq)),
+                ("status", status),
+            ],
+        )
+        conn.commit()
+    finally:
+        conn.close()
+
+
+def write_commandlog(path: Path, commit_id: int) -> None:
+    conn = sqlite3.connect(str(path))
+    try:
+        conn.execute("PRAGMA synchronous=OFF")
+        conn.execute("PRAGMA journal_mode=OFF")
+        conn.execute("CREATE TABLE commandlog(change_sequence_number INTEGER PRIMARY KEY, commit_id INTEGER, "
+                     "sql TEXT, argcnt INTEGER)")
+        conn.execute("INSERT INTO commandlog VALUES(0, ?, 'INSERT INTO t(a) VALUES(1)', 0)", (commit_id,))
+        conn.commit()
+    finally:
+        conn.close()
+
+
+def add_segment(device_dir: Path, seq: int, metadata: bool = False, status: str = "READY_TO_APPLY") -> Path:
+    seg = device_dir / f"{seq}.sqllog"
+    if not metadata:
+        seg.touch()
+    else:
+        write_commandlog(seg, FIRST_COMMIT_ID + seq * 5000)
+        _, name, dev_uuid = device_dir.name.split("_", 2)
+        write_metadata(device_dir / f"{seq}.sqllog.synclite.metadata", dev_uuid, name, seq, status)
+    return seg
+
+
+def generate(stage: Path, devices: int, segments: int, metadata: bool = False, applied_fraction: float = 0.9) -> list:
+    stage.mkdir(parents=True, exist_ok=True)
+    applied = int(segments * applied_fraction)
+    dirs = []
+    for d in range(devices):
+        device_dir = stage / f"synclite_dev{d}_{uuid.uuid4()}"
+        device_dir.mkdir()
+        for s in range(segments):
+            add_segment(device_dir, s, metadata, "APPLIED" if s < applied else "READY_TO_APPLY")
+        dirs.append(device_dir)
+    return dirs
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("stage_dir")
+    parser.add_argument("--devices", type=int, default=1000)
+    parser.add_argument("--segments-per-device", type=int, default=10)
+    parser.add_argument("--metadata", action="store_true")
+    parser.add_argument("--applied-fraction", type=float, default=0.9)
+    args = parser.parse_args()
+
+    stage = Path(args.stage_dir)
+    if stage.exists() and any(stage.iterdir()):
+        print(f"Stage directory is not empty: {stage}")
+        sys.exit(1)
+    generate(stage, args.devices, args.segments_per_device, args.metadata, args.applied_fraction)
+    print(f"Created {args.devices} devices x {args.segments_per_device} segments under {stage}")
+
+
+if __name__ == "__main__":
+    main()